@@ -0,0 +1,145 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.parser;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.util.CellAddress;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import ru.portfolio.portfolio.cache.CacheFactory;
+import ru.portfolio.portfolio.parser.psb.PsbBrokerReport;
+import ru.portfolio.portfolio.parser.psb.PsbReportTableFactory;
+import ru.portfolio.portfolio.parser.uralsib.UralsibBrokerReport;
+import ru.portfolio.portfolio.parser.uralsib.UralsibReportTableFactory;
+import ru.portfolio.portfolio.repository.PortfolioPropertyRepository;
+import ru.portfolio.portfolio.view.ForeignExchangeRateService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportParserBenchmark {
+
+    @Param({"1000", "10000"})
+    private int transactions;
+    private byte[] psbReport;
+    private byte[] uralsibReport;
+    private ReportPage psbPage;
+    private PsbBrokerReport psbBrokerReport;
+    private ForeignExchangeRateService foreignExchangeRateService;
+    private ForkJoinPool tableParserPool;
+
+    @Setup
+    public void setUp() throws IOException {
+        psbReport = SyntheticReports.psbReport("1", transactions);
+        uralsibReport = SyntheticReports.uralsibReport("2", transactions);
+        psbPage = ReportPageReader.read("psb.xlsx", new ByteArrayInputStream(psbReport));
+        psbBrokerReport = new PsbBrokerReport("psb.xlsx", new ByteArrayInputStream(psbReport));
+        foreignExchangeRateService = new ForeignExchangeRateService(
+                Mockito.mock(PortfolioPropertyRepository.class),
+                new CacheFactory(new SimpleMeterRegistry()));
+        tableParserPool = new ForkJoinPool();
+        // fail fast if parsers do not recognize synthetic reports any more
+        checkParsed(psbParse(), transactions);
+        checkParsed(uralsibParse(), transactions);
+        checkParsed(psbParseConcurrently(), transactions);
+        checkParsed(uralsibParseConcurrently(), transactions);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tableParserPool.shutdownNow();
+    }
+
+    /**
+     * Search of the last table footer, scans all report rows
+     */
+    @Benchmark
+    public CellAddress excelTableHelperFind() {
+        return ExcelTableHelper.find(psbPage, "Итого оборот");
+    }
+
+    /**
+     * Cash flow table parsing with duplicates merging
+     */
+    @Benchmark
+    public List<?> excelTableDataCollectionWithDedupe() {
+        return new PsbReportTableFactory(psbBrokerReport).getCashFlowTable().getData();
+    }
+
+    @Benchmark
+    public ReportTableFactory psbParse() throws IOException {
+        PsbBrokerReport report = new PsbBrokerReport("psb.xlsx", new ByteArrayInputStream(psbReport));
+        return parse(new PsbReportTableFactory(report));
+    }
+
+    @Benchmark
+    public ReportTableFactory uralsibParse() throws IOException {
+        UralsibBrokerReport report = new UralsibBrokerReport("uralsib.xlsx", new ByteArrayInputStream(uralsibReport));
+        return parse(new UralsibReportTableFactory(report, foreignExchangeRateService));
+    }
+
+    /**
+     * Report tables are parsed concurrently by fork-join pool
+     */
+    @Benchmark
+    public ReportTableFactory psbParseConcurrently() throws IOException {
+        PsbBrokerReport report = new PsbBrokerReport("psb.xlsx", new ByteArrayInputStream(psbReport));
+        return new ParsedReportTableFactory(new PsbReportTableFactory(report), tableParserPool);
+    }
+
+    @Benchmark
+    public ReportTableFactory uralsibParseConcurrently() throws IOException {
+        UralsibBrokerReport report = new UralsibBrokerReport("uralsib.xlsx", new ByteArrayInputStream(uralsibReport));
+        return new ParsedReportTableFactory(new UralsibReportTableFactory(report, foreignExchangeRateService),
+                tableParserPool);
+    }
+
+    private static ReportTableFactory parse(ReportTableFactory factory) {
+        Stream.of(factory.createPortfolioCashTable(),
+                factory.getPortfolioPropertyTable(),
+                factory.getCashFlowTable(),
+                factory.getPortfolioSecuritiesTable(),
+                factory.getSecurityTransactionTable(),
+                factory.getDerivativeTransactionTable(),
+                factory.getForeignExchangeTransactionTable(),
+                factory.getCouponAmortizationRedemptionTable(),
+                factory.getDividendTable(),
+                factory.getDerivativeCashFlowTable())
+                .forEach(ReportTable::getData);
+        return factory;
+    }
+
+    private static void checkParsed(ReportTableFactory factory, int transactions) {
+        int parsed = factory.getSecurityTransactionTable().getData().size();
+        if (parsed != transactions) {
+            throw new IllegalStateException("Из синтетического отчета " + factory.getReport().getPath() +
+                    " получено " + parsed + " сделок вместо " + transactions);
+        }
+    }
+}
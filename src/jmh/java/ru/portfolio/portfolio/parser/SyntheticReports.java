@@ -0,0 +1,150 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.parser;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates broker reports with security transactions and cash flow tables of given size
+ */
+public class SyntheticReports {
+    private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final LocalDate firstTradingDay = LocalDate.of(2019, 1, 1);
+    private static final int SECURITY_COUNT = 50;
+
+    /**
+     * @param transactions buy and sell transactions count, each second cash flow has duplicate
+     */
+    public static byte[] psbReport(String portfolio, int transactions) throws IOException {
+        try (XSSFWorkbook book = new XSSFWorkbook()) {
+            Sheet sheet = book.createSheet();
+            int rowNum = 0;
+            addRow(sheet, rowNum++, "ОТЧЕТ БРОКЕРА", "с 01.01.2019 по " + getDate(transactions));
+            addRow(sheet, rowNum++, "Договор №:", portfolio + "/19");
+            rowNum++;
+
+            addRow(sheet, rowNum++, "Сводная информация по счетам клиента в валюте счета");
+            addRow(sheet, rowNum++, "", "", "RUB", "USD", "EUR", "GBP", "CHF");
+            addRow(sheet, rowNum++, "", "Курс валют ЦБ РФ", 1, 75.5, 85.1, 95.2, 80.3);
+            addRow(sheet, rowNum++, "", "\"СУММА АКТИВОВ\" на конец дня", 1_000_000, 0, 0, 0, 0);
+            rowNum++;
+
+            addRow(sheet, rowNum++, "Внешнее движение денежных средств в валюте счета");
+            addRow(sheet, rowNum++, "Дата", "Операция", "Сумма", "Валюта счета", "Комментарий");
+            for (int i = 0; i < transactions / 2; i++) {
+                addRow(sheet, rowNum++, getDate(i), "Зачислено на счет", 1000 + (i / 2), "RUB", "");
+            }
+            rowNum++;
+
+            addRow(sheet, rowNum++, "Портфель на конец дня на биржевом рынке");
+            addRow(sheet, rowNum++, "Наименование", "ISIN", "Исходящий остаток", "Зачислено", "Списано",
+                    "Оценочная стоимость в валюте цены", "НКД", "Валюта цены");
+            for (int i = 0; i < Math.min(transactions, SECURITY_COUNT); i++) {
+                addRow(sheet, rowNum++, "Облигация " + i, getIsin(i), 0, 0, 0, 0, 0, "RUB");
+            }
+            addRow(sheet, rowNum++, "* цена последней сделки (на организованных торгах)");
+            rowNum++;
+
+            addRow(sheet, rowNum++, "Сделки, совершенные с ЦБ на биржевых торговых площадках (Фондовый рынок) " +
+                    "с расчетами в дату заключения");
+            addRow(sheet, rowNum++, "Дата и время", "Номер сделки", "ISIN", "Покупка / Продажа", "Кол-во",
+                    "Сумма сделки", "Валюта сделки", "НКД", "Комиссия торговой системы", "Клиринговая комиссия",
+                    "Комиссия за ИТС", "Ком. брокера", "Валюта брок. комиссии");
+            for (int i = 0; i < transactions; i++) {
+                addRow(sheet, rowNum++, getDate(i) + " 10:00:00", getTransactionId(portfolio, i), getIsin(i), getDirection(i), 10,
+                        1000.5 + i, "RUB / RUB", 0, 0.15, 0, 0, 0.5, "RUB");
+            }
+            addRow(sheet, rowNum++, "Итого оборот");
+            rowNum++;
+            addRow(sheet, rowNum, "Конец отчета");
+            return toBytes(book);
+        }
+    }
+
+    /**
+     * @param transactions buy and sell transactions count
+     */
+    public static byte[] uralsibReport(String portfolio, int transactions) throws IOException {
+        try (XSSFWorkbook book = new XSSFWorkbook()) {
+            Sheet sheet = book.createSheet();
+            int rowNum = 0;
+            addRow(sheet, rowNum++, "Номер счета Клиента:", portfolio);
+            addRow(sheet, rowNum++, "Отчет за период с 01.01.2019 по " + getDate(transactions));
+            rowNum++;
+
+            addRow(sheet, rowNum++, "Биржевые сделки с ценными бумагами в отчетном периоде");
+            addRow(sheet, rowNum++, "Номер сделки", "Дата поставки", "ISIN", "Вид сделки", "Количество ЦБ",
+                    "Сумма сделки", "Валюта суммы", "НКД", "Комиссия ТС", "", "Комиссия брокера", "");
+            addRow(sheet, rowNum++, "", "", "", "", "", "", "", "", "Всего", "Валюта списания", "Всего",
+                    "Валюта списания");
+            for (int i = 0; i < transactions; i++) {
+                addRow(sheet, rowNum++, getTransactionId(portfolio, i), getDate(i), getIsin(i), getDirection(i), 10, 1000.5 + i, "RUR", 0,
+                        0.15, "RUR", 0.5, "RUR");
+            }
+            rowNum++;
+            addRow(sheet, rowNum, "Конец отчета");
+            return toBytes(book);
+        }
+    }
+
+    private static String getDate(int transaction) {
+        return firstTradingDay.plusDays(transaction / 10).format(dateFormatter);
+    }
+
+    /**
+     * Transaction ids are unique across portfolios, H2 builds unique index for auto increment id column
+     */
+    private static long getTransactionId(String portfolio, int transaction) {
+        return (portfolio.hashCode() & 0xFFFFL) * 10_000_000L + transaction + 1;
+    }
+
+    private static String getIsin(int transaction) {
+        return String.format("RU%010d", transaction % SECURITY_COUNT);
+    }
+
+    private static String getDirection(int transaction) {
+        // each security is bought and sold in turn
+        return ((transaction / SECURITY_COUNT) % 2 == 0) ? "Покупка" : "Продажа";
+    }
+
+    private static void addRow(Sheet sheet, int rowNum, Object... values) {
+        Row row = sheet.createRow(rowNum);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value instanceof Number) {
+                row.createCell(i).setCellValue(((Number) value).doubleValue());
+            } else {
+                row.createCell(i).setCellValue(value.toString());
+            }
+        }
+    }
+
+    private static byte[] toBytes(XSSFWorkbook book) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        book.write(out);
+        return out.toByteArray();
+    }
+}
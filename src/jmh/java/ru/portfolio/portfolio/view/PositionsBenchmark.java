@@ -0,0 +1,101 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import org.openjdk.jmh.annotations.*;
+import ru.portfolio.portfolio.converter.SecurityEventCashFlowConverter;
+import ru.portfolio.portfolio.entity.CashFlowTypeEntity;
+import ru.portfolio.portfolio.entity.PortfolioEntity;
+import ru.portfolio.portfolio.entity.SecurityEntity;
+import ru.portfolio.portfolio.entity.SecurityEventCashFlowEntity;
+import ru.portfolio.portfolio.pojo.CashFlowType;
+import ru.portfolio.portfolio.pojo.Transaction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionsBenchmark {
+    private static final int COUPON_PERIOD = 10; // transactions between coupons
+
+    @Param({"1000", "10000"})
+    private int transactions;
+    private List<Transaction> securityTransactions;
+    private List<SecurityEventCashFlowEntity> coupons;
+    private Positions positions;
+    private PaidInterestFactory paidInterestFactory;
+
+    @Setup
+    public void setUp() {
+        PortfolioEntity portfolio = new PortfolioEntity();
+        portfolio.setId("portfolio");
+        SecurityEntity security = new SecurityEntity();
+        security.setIsin("isin");
+        CashFlowTypeEntity couponType = new CashFlowTypeEntity();
+        couponType.setId(CashFlowType.COUPON.getId());
+
+        securityTransactions = new ArrayList<>(transactions);
+        coupons = new ArrayList<>();
+        int position = 0;
+        for (int i = 0; i < transactions; i++) {
+            int count = (i % 3 == 2) ? -10 : 10; // two buys and one sell
+            position += count;
+            securityTransactions.add(Transaction.builder()
+                    .id((long) i + 1)
+                    .portfolio("portfolio")
+                    .isin("isin")
+                    .timestamp(Instant.ofEpochSecond(100L * i))
+                    .count(count)
+                    .build());
+            if (i % COUPON_PERIOD == COUPON_PERIOD - 1) {
+                SecurityEventCashFlowEntity coupon = new SecurityEventCashFlowEntity();
+                coupon.setId(coupons.size() + 1);
+                coupon.setPortfolio(portfolio);
+                coupon.setSecurity(security);
+                coupon.setCashFlowType(couponType);
+                coupon.setTimestamp(Instant.ofEpochSecond(100L * i + 50));
+                coupon.setCount(position);
+                coupon.setValue(BigDecimal.valueOf(position));
+                coupons.add(coupon);
+            }
+        }
+        positions = createPositions();
+        // converter does not use reference data for entity to pojo conversion
+        paidInterestFactory = new PaidInterestFactory(new SecurityEventCashFlowConverter(null));
+    }
+
+    @Benchmark
+    public Positions createPositions() {
+        return new Positions(securityTransactions, Collections.emptyList());
+    }
+
+    @Benchmark
+    public PaidInterest createPaidInterest() {
+        return paidInterestFactory.create(positions, coupons);
+    }
+}
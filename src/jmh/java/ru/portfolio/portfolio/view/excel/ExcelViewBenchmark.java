@@ -0,0 +1,88 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view.excel;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.portfolio.portfolio.PortfolioApplication;
+import ru.portfolio.portfolio.parser.ReportParserService;
+import ru.portfolio.portfolio.parser.SyntheticReports;
+import ru.portfolio.portfolio.parser.psb.PsbBrokerReport;
+import ru.portfolio.portfolio.parser.psb.PsbReportTableFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel export of H2 database seeded by N portfolios with M trades each
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExcelViewBenchmark {
+
+    @Param({"5"})
+    private int portfolios;
+    @Param({"1000"})
+    private int transactions;
+    private ConfigurableApplicationContext context;
+    private ExcelView excelView;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(PortfolioApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;mode=mysql;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN");
+        ReportParserService reportParserService = context.getBean(ReportParserService.class);
+        for (int i = 1; i <= portfolios; i++) {
+            byte[] report = SyntheticReports.psbReport(String.valueOf(i), transactions);
+            PsbBrokerReport brokerReport = new PsbBrokerReport("psb-" + i + ".xlsx", new ByteArrayInputStream(report));
+            reportParserService.parse(new PsbReportTableFactory(brokerReport));
+        }
+        excelView = context.getBean(ExcelView.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SXSSFWorkbook writeTo() throws InterruptedException, IOException {
+        SXSSFWorkbook book = new SXSSFWorkbook(100);
+        try {
+            excelView.writeTo(book);
+            book.write(OutputStream.nullOutputStream());
+            return book;
+        } finally {
+            book.dispose();
+            book.close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates size bounded LRU caches. Hit, miss and eviction counters are published as "cache.*" metrics
+ * tagged by cache name.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheFactory {
+    private final MeterRegistry meterRegistry;
+
+    public <K, V> Cache<K, V> create(String name, long maximumSize) {
+        Cache<K, V> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        return GuavaCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    public <K, V> LoadingCache<K, V> create(String name, long maximumSize, CacheLoader<K, V> loader) {
+        LoadingCache<K, V> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(loader);
+        return GuavaCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+}
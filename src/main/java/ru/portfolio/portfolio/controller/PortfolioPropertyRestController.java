@@ -18,23 +18,33 @@
 
 package ru.portfolio.portfolio.controller;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.portfolio.portfolio.converter.EntityConverter;
 import ru.portfolio.portfolio.entity.PortfolioPropertyEntity;
+import ru.portfolio.portfolio.parser.PortfolioPropertiesStoredEvent;
 import ru.portfolio.portfolio.pojo.PortfolioProperty;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
 public class PortfolioPropertyRestController extends AbstractRestController<Integer, PortfolioProperty, PortfolioPropertyEntity> {
+    private final EntityConverter<PortfolioPropertyEntity, PortfolioProperty> converter;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PortfolioPropertyRestController(JpaRepository<PortfolioPropertyEntity, Integer> repository,
-                                           EntityConverter<PortfolioPropertyEntity, PortfolioProperty> converter) {
+                                           EntityConverter<PortfolioPropertyEntity, PortfolioProperty> converter,
+                                           ApplicationEventPublisher eventPublisher) {
         super(repository, converter);
+        this.converter = converter;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping("/portfolio-properties")
@@ -52,20 +62,43 @@ public class PortfolioPropertyRestController extends AbstractRestController<Inte
     @PostMapping("/portfolio-properties")
     @Override
     public ResponseEntity<PortfolioPropertyEntity> post(@Valid @RequestBody PortfolioProperty property) {
-        return super.post(property);
+        ResponseEntity<PortfolioPropertyEntity> response = super.post(property);
+        publishStoredEvent(Collections.singletonList(property));
+        return response;
     }
 
     @PutMapping("/portfolio-properties/{id}")
     @Override
     public ResponseEntity<PortfolioPropertyEntity> put(@PathVariable("id") Integer id,
                                                         @Valid @RequestBody PortfolioProperty property) {
-        return super.put(id, property);
+        Collection<PortfolioProperty> properties = getPropertyById(id);
+        ResponseEntity<PortfolioPropertyEntity> response = super.put(id, property);
+        properties.add(property);
+        publishStoredEvent(properties);
+        return response;
     }
 
     @DeleteMapping("/portfolio-properties/{id}")
     @Override
     public void delete(@PathVariable("id") Integer id) {
+        Collection<PortfolioProperty> properties = getPropertyById(id);
         super.delete(id);
+        publishStoredEvent(properties);
+    }
+
+    private Collection<PortfolioProperty> getPropertyById(Integer id) {
+        Collection<PortfolioProperty> properties = new ArrayList<>(2);
+        getById(id).map(converter::fromEntity).ifPresent(properties::add);
+        return properties;
+    }
+
+    /**
+     * Cached exchange rates are dropped by the event
+     */
+    private void publishStoredEvent(Collection<PortfolioProperty> properties) {
+        if (!properties.isEmpty()) {
+            eventPublisher.publishEvent(new PortfolioPropertiesStoredEvent(properties));
+        }
     }
 
     @Override
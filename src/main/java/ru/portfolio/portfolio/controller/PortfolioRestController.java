@@ -21,6 +21,7 @@ package ru.portfolio.portfolio.controller;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.portfolio.portfolio.converter.PortfolioConverter;
+import ru.portfolio.portfolio.converter.ReferenceDataCache;
 import ru.portfolio.portfolio.entity.PortfolioEntity;
 import ru.portfolio.portfolio.pojo.Portfolio;
 import ru.portfolio.portfolio.repository.PortfolioRepository;
@@ -32,10 +33,12 @@ import java.util.Optional;
 @RestController
 public class PortfolioRestController extends AbstractRestController<String, Portfolio, PortfolioEntity> {
     private final PortfolioRepository repository;
+    private final ReferenceDataCache referenceDataCache;
 
-    public PortfolioRestController(PortfolioRepository repository, PortfolioConverter converter) {
+    public PortfolioRestController(PortfolioRepository repository, PortfolioConverter converter, ReferenceDataCache referenceDataCache) {
         super(repository, converter);
         this.repository = repository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @GetMapping("/portfolios")
@@ -67,6 +70,7 @@ public class PortfolioRestController extends AbstractRestController<String, Port
     @Override
     public void delete(@PathVariable("id") String id) {
         super.delete(id);
+        referenceDataCache.evictPortfolio(id);
     }
 
     @Override
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.portfolio.portfolio.converter.EntityConverter;
 import ru.portfolio.portfolio.entity.SecurityEventCashFlowEntity;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
+import ru.portfolio.portfolio.view.PositionsSnapshotService;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -31,10 +32,13 @@ import java.util.Optional;
 
 @RestController
 public class SecurityEventCashFlowRestController extends AbstractRestController<Integer, SecurityEventCashFlow, SecurityEventCashFlowEntity> {
+    private final PositionsSnapshotService positionsSnapshotService;
 
     public SecurityEventCashFlowRestController(JpaRepository<SecurityEventCashFlowEntity, Integer> repository,
-                                               EntityConverter<SecurityEventCashFlowEntity, SecurityEventCashFlow> converter) {
+                                               EntityConverter<SecurityEventCashFlowEntity, SecurityEventCashFlow> converter,
+                                               PositionsSnapshotService positionsSnapshotService) {
         super(repository, converter);
+        this.positionsSnapshotService = positionsSnapshotService;
     }
 
     @GetMapping("/security-event-cash-flows")
@@ -52,20 +56,32 @@ public class SecurityEventCashFlowRestController extends AbstractRestController<
     @PostMapping("/security-event-cash-flows")
     @Override
     public ResponseEntity<SecurityEventCashFlowEntity> post(@Valid @RequestBody SecurityEventCashFlow event) {
-        return super.post(event);
+        ResponseEntity<SecurityEventCashFlowEntity> response = super.post(event);
+        positionsSnapshotService.delete(event.getPortfolio(), event.getIsin());
+        return response;
     }
 
     @PutMapping("/security-event-cash-flows/{id}")
     @Override
     public ResponseEntity<SecurityEventCashFlowEntity> put(@PathVariable("id") Integer id,
                                                    @Valid @RequestBody SecurityEventCashFlow event) {
-        return super.put(id, event);
+        Optional<SecurityEventCashFlowEntity> previous = getById(id);
+        ResponseEntity<SecurityEventCashFlowEntity> response = super.put(id, event);
+        previous.ifPresent(this::deletePositionsSnapshot);
+        positionsSnapshotService.delete(event.getPortfolio(), event.getIsin());
+        return response;
     }
 
     @DeleteMapping("/security-event-cash-flows/{id}")
     @Override
     public void delete(@PathVariable("id") Integer id) {
+        Optional<SecurityEventCashFlowEntity> previous = getById(id);
         super.delete(id);
+        previous.ifPresent(this::deletePositionsSnapshot);
+    }
+
+    private void deletePositionsSnapshot(SecurityEventCashFlowEntity entity) {
+        positionsSnapshotService.delete(entity.getPortfolio().getId(), entity.getSecurity().getIsin());
     }
 
     @Override
@@ -20,6 +20,7 @@ package ru.portfolio.portfolio.controller;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.portfolio.portfolio.converter.ReferenceDataCache;
 import ru.portfolio.portfolio.converter.SecurityConverter;
 import ru.portfolio.portfolio.entity.SecurityEntity;
 import ru.portfolio.portfolio.pojo.Security;
@@ -32,10 +33,12 @@ import java.util.Optional;
 @RestController
 public class SecurityRestController extends AbstractRestController<String, Security, SecurityEntity> {
     private final SecurityRepository repository;
+    private final ReferenceDataCache referenceDataCache;
 
-    public SecurityRestController(SecurityRepository repository, SecurityConverter converter) {
+    public SecurityRestController(SecurityRepository repository, SecurityConverter converter, ReferenceDataCache referenceDataCache) {
         super(repository, converter);
         this.repository = repository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @GetMapping("/securities")
@@ -66,6 +69,7 @@ public class SecurityRestController extends AbstractRestController<String, Secur
     @Override
     public void delete(@PathVariable("isin") String isin) {
         super.delete(isin);
+        referenceDataCache.evictSecurity(isin);
     }
 
     @Override
@@ -25,6 +25,7 @@ import ru.portfolio.portfolio.converter.EntityConverter;
 import ru.portfolio.portfolio.entity.TransactionEntity;
 import ru.portfolio.portfolio.entity.TransactionEntityPK;
 import ru.portfolio.portfolio.pojo.Transaction;
+import ru.portfolio.portfolio.view.PositionsSnapshotService;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -34,10 +35,13 @@ import java.util.Optional;
 
 @RestController
 public class TransactionRestController extends AbstractRestController<TransactionEntityPK, Transaction, TransactionEntity> {
+    private final PositionsSnapshotService positionsSnapshotService;
 
     public TransactionRestController(JpaRepository<TransactionEntity, TransactionEntityPK> repository,
-                                     EntityConverter<TransactionEntity, Transaction> converter) {
+                                     EntityConverter<TransactionEntity, Transaction> converter,
+                                     PositionsSnapshotService positionsSnapshotService) {
         super(repository, converter);
+        this.positionsSnapshotService = positionsSnapshotService;
     }
 
     @Override
@@ -58,7 +62,9 @@ public class TransactionRestController extends AbstractRestController<Transactio
     @Override
     @PostMapping("/transactions")
     public ResponseEntity<TransactionEntity> post(@Valid @RequestBody Transaction object) {
-        return super.post(object);
+        ResponseEntity<TransactionEntity> response = super.post(object);
+        positionsSnapshotService.delete(object.getPortfolio(), object.getIsin());
+        return response;
     }
 
     /**
@@ -68,7 +74,12 @@ public class TransactionRestController extends AbstractRestController<Transactio
     public ResponseEntity<TransactionEntity> put(@PathVariable("portfolio") String portfolio,
                                                  @PathVariable("id") Long id,
                                                  @Valid @RequestBody Transaction object) {
-        return super.put(getId(portfolio, id), object);
+        TransactionEntityPK pk = getId(portfolio, id);
+        Optional<TransactionEntity> previous = getById(pk);
+        ResponseEntity<TransactionEntity> response = super.put(pk, object);
+        previous.ifPresent(this::deletePositionsSnapshot);
+        positionsSnapshotService.delete(portfolio, object.getIsin());
+        return response;
     }
 
     /**
@@ -77,7 +88,14 @@ public class TransactionRestController extends AbstractRestController<Transactio
     @DeleteMapping("/transactions/portfolio/{portfolio}/id/{id}")
     public void delete(@PathVariable("portfolio") String portfolio,
                        @PathVariable("id") Long id) {
-        super.delete(getId(portfolio, id));
+        TransactionEntityPK pk = getId(portfolio, id);
+        Optional<TransactionEntity> previous = getById(pk);
+        super.delete(pk);
+        previous.ifPresent(this::deletePositionsSnapshot);
+    }
+
+    private void deletePositionsSnapshot(TransactionEntity entity) {
+        positionsSnapshotService.delete(entity.getPk().getPortfolio(), entity.getSecurity().getIsin());
     }
 
     @Override
@@ -25,21 +25,16 @@ import ru.portfolio.portfolio.entity.EventCashFlowEntity;
 import ru.portfolio.portfolio.entity.PortfolioEntity;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.EventCashFlow;
-import ru.portfolio.portfolio.repository.CashFlowTypeRepository;
-import ru.portfolio.portfolio.repository.PortfolioRepository;
 
 @Component
 @RequiredArgsConstructor
 public class EventCashFlowConverter implements EntityConverter<EventCashFlowEntity, EventCashFlow> {
-    private final PortfolioRepository portfolioRepository;
-    private final CashFlowTypeRepository cashFlowTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public EventCashFlowEntity toEntity(EventCashFlow eventCashFlow) {
-        PortfolioEntity portfolioEntity = portfolioRepository.findById(eventCashFlow.getPortfolio())
-                .orElseThrow(() -> new IllegalArgumentException("В справочнике не найден брокерский счет: " + eventCashFlow.getPortfolio()));
-        CashFlowTypeEntity cashFlowTypeEntity = cashFlowTypeRepository.findById(eventCashFlow.getEventType().getId())
-                .orElseThrow(() -> new IllegalArgumentException("В справочнике не найдено событие с типом: " + eventCashFlow.getEventType().getId()));
+        PortfolioEntity portfolioEntity = referenceDataCache.getPortfolio(eventCashFlow.getPortfolio());
+        CashFlowTypeEntity cashFlowTypeEntity = referenceDataCache.getCashFlowType(eventCashFlow.getEventType().getId());
 
         EventCashFlowEntity entity = new EventCashFlowEntity();
         entity.setId(eventCashFlow.getId());
@@ -24,17 +24,15 @@ import ru.portfolio.portfolio.entity.PortfolioEntity;
 import ru.portfolio.portfolio.entity.PortfolioPropertyEntity;
 import ru.portfolio.portfolio.pojo.PortfolioProperty;
 import ru.portfolio.portfolio.pojo.PortfolioPropertyType;
-import ru.portfolio.portfolio.repository.PortfolioRepository;
 
 @Component
 @RequiredArgsConstructor
 public class PortfolioPropertyConverter implements EntityConverter<PortfolioPropertyEntity, PortfolioProperty> {
-    private final PortfolioRepository portfolioRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public PortfolioPropertyEntity toEntity(PortfolioProperty property) {
-        PortfolioEntity portfolioEntity = portfolioRepository.findById(property.getPortfolio())
-                .orElseThrow(() -> new IllegalArgumentException("В справочнике не найден брокерский счет: " + property.getPortfolio()));
+        PortfolioEntity portfolioEntity = referenceDataCache.getPortfolio(property.getPortfolio());
 
         PortfolioPropertyEntity entity = new PortfolioPropertyEntity();
         entity.setId(property.getId());
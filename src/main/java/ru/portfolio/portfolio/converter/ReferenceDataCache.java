@@ -0,0 +1,106 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.converter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.portfolio.portfolio.entity.CashFlowTypeEntity;
+import ru.portfolio.portfolio.entity.PortfolioEntity;
+import ru.portfolio.portfolio.entity.SecurityEntity;
+import ru.portfolio.portfolio.repository.CashFlowTypeRepository;
+import ru.portfolio.portfolio.repository.PortfolioRepository;
+import ru.portfolio.portfolio.repository.SecurityRepository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Caches existence of reference data (portfolios, securities, cash flow types) and returns entity references
+ * (proxies) without loading entities. Only existing keys are cached, so cache should be invalidated on deletes only.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+    private final PortfolioRepository portfolioRepository;
+    private final SecurityRepository securityRepository;
+    private final CashFlowTypeRepository cashFlowTypeRepository;
+    private final Set<String> portfolios = ConcurrentHashMap.newKeySet();
+    private final Set<String> securities = ConcurrentHashMap.newKeySet();
+    private volatile Set<Integer> cashFlowTypes;
+
+    /**
+     * @throws IllegalArgumentException if portfolio not exists
+     */
+    public PortfolioEntity getPortfolio(String id) {
+        if (!portfolios.contains(id)) {
+            if (!portfolioRepository.existsById(id)) {
+                throw new IllegalArgumentException("В справочнике не найден брокерский счет: " + id);
+            }
+            portfolios.add(id);
+        }
+        return portfolioRepository.getOne(id);
+    }
+
+    /**
+     * @throws IllegalArgumentException if security not exists
+     */
+    public SecurityEntity getSecurity(String isin) {
+        if (!securities.contains(isin)) {
+            if (!securityRepository.existsById(isin)) {
+                throw new IllegalArgumentException("Ценная бумага с заданным ISIN не найдена: " + isin);
+            }
+            securities.add(isin);
+        }
+        return securityRepository.getOne(isin);
+    }
+
+    /**
+     * @throws IllegalArgumentException if cash flow type not exists
+     */
+    public CashFlowTypeEntity getCashFlowType(int id) {
+        if (!getCashFlowTypes().contains(id)) {
+            throw new IllegalArgumentException("В справочнике не найдено событие с типом: " + id);
+        }
+        return cashFlowTypeRepository.getOne(id);
+    }
+
+    public boolean isCashFlowTypeExists(int id) {
+        return getCashFlowTypes().contains(id);
+    }
+
+    private Set<Integer> getCashFlowTypes() {
+        if (cashFlowTypes == null) {
+            cashFlowTypes = cashFlowTypeRepository.findAll()
+                    .stream()
+                    .map(CashFlowTypeEntity::getId)
+                    .collect(Collectors.toSet());
+        }
+        return cashFlowTypes;
+    }
+
+    public void evictPortfolio(String id) {
+        portfolios.remove(id);
+    }
+
+    public void evictSecurity(String isin) {
+        securities.remove(isin);
+    }
+}
@@ -26,28 +26,20 @@ import ru.portfolio.portfolio.entity.SecurityEntity;
 import ru.portfolio.portfolio.entity.SecurityEventCashFlowEntity;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
-import ru.portfolio.portfolio.repository.CashFlowTypeRepository;
-import ru.portfolio.portfolio.repository.PortfolioRepository;
-import ru.portfolio.portfolio.repository.SecurityRepository;
 
 @Component
 @RequiredArgsConstructor
 public class SecurityEventCashFlowConverter implements EntityConverter<SecurityEventCashFlowEntity, SecurityEventCashFlow> {
-    private final PortfolioRepository portfolioRepository;
-    private final SecurityRepository securityRepository;
-    private final CashFlowTypeRepository cashFlowTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public SecurityEventCashFlowEntity toEntity(SecurityEventCashFlow eventCashFlow) {
         SecurityEntity securityEntity = null;
         if (eventCashFlow.getIsin() != null) {
-            securityEntity = securityRepository.findByIsin(eventCashFlow.getIsin())
-                    .orElseThrow(() -> new IllegalArgumentException("Ценная бумага с заданным ISIN не найдена: " + eventCashFlow.getIsin()));
+            securityEntity = referenceDataCache.getSecurity(eventCashFlow.getIsin());
         }
-        PortfolioEntity portfolioEntity = portfolioRepository.findById(eventCashFlow.getPortfolio())
-                .orElseThrow(() -> new IllegalArgumentException("В справочнике не найден брокерский счет: " + eventCashFlow.getPortfolio()));
-        CashFlowTypeEntity cashFlowTypeEntity = cashFlowTypeRepository.findById(eventCashFlow.getEventType().getId())
-                .orElseThrow(() -> new IllegalArgumentException("В справочнике не найдено событие с типом: " + eventCashFlow.getEventType().getId()));
+        PortfolioEntity portfolioEntity = referenceDataCache.getPortfolio(eventCashFlow.getPortfolio());
+        CashFlowTypeEntity cashFlowTypeEntity = referenceDataCache.getCashFlowType(eventCashFlow.getEventType().getId());
 
         SecurityEventCashFlowEntity entity = new SecurityEventCashFlowEntity();
         entity.setId(eventCashFlow.getId());
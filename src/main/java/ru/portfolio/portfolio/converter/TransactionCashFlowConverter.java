@@ -22,26 +22,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.portfolio.portfolio.entity.TransactionCashFlowEntity;
 import ru.portfolio.portfolio.entity.TransactionCashFlowEntityPK;
-import ru.portfolio.portfolio.entity.TransactionEntityPK;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.TransactionCashFlow;
-import ru.portfolio.portfolio.repository.CashFlowTypeRepository;
-import ru.portfolio.portfolio.repository.TransactionRepository;
 
 @Component
 @RequiredArgsConstructor
 public class TransactionCashFlowConverter implements EntityConverter<TransactionCashFlowEntity, TransactionCashFlow> {
-    private final TransactionRepository transactionRepository;
-    private final CashFlowTypeRepository cashFlowTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public TransactionCashFlowEntity toEntity(TransactionCashFlow cash) {
-        TransactionEntityPK transactionPk = new TransactionEntityPK();
-        transactionPk.setId(cash.getTransactionId());
-        transactionPk.setPortfolio(cash.getPortfolio());
-        if (!transactionRepository.existsById(transactionPk))
-            throw new IllegalArgumentException("Транзакция с номером не найдена: " + cash.getTransactionId());
-        if (!cashFlowTypeRepository.existsById(cash.getEventType().getId()))
+        // transaction existence is checked by DB foreign key
+        if (!referenceDataCache.isCashFlowTypeExists(cash.getEventType().getId()))
             throw new IllegalArgumentException("В справочнике не найдено событие с типом: " + cash.getEventType().getId());
 
         TransactionCashFlowEntityPK pk = new TransactionCashFlowEntityPK();
@@ -24,21 +24,16 @@ import ru.portfolio.portfolio.entity.SecurityEntity;
 import ru.portfolio.portfolio.entity.TransactionEntity;
 import ru.portfolio.portfolio.entity.TransactionEntityPK;
 import ru.portfolio.portfolio.pojo.Transaction;
-import ru.portfolio.portfolio.repository.PortfolioRepository;
-import ru.portfolio.portfolio.repository.SecurityRepository;
 
 @Component
 @RequiredArgsConstructor
 public class TransactionConverter implements EntityConverter<TransactionEntity, Transaction> {
-    private final PortfolioRepository portfolioRepository;
-    private final SecurityRepository securityRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public TransactionEntity toEntity(Transaction transaction) {
-        portfolioRepository.findById(transaction.getPortfolio())
-                .orElseThrow(() -> new IllegalArgumentException("В справочнике не найден брокерский счет: " + transaction.getPortfolio()));
-        SecurityEntity securityEntity = securityRepository.findByIsin(transaction.getIsin())
-                .orElseThrow(() -> new IllegalArgumentException("Ценная бумага с заданным ISIN не найдена: " + transaction.getIsin()));
+        referenceDataCache.getPortfolio(transaction.getPortfolio());
+        SecurityEntity securityEntity = referenceDataCache.getSecurity(transaction.getIsin());
 
         TransactionEntityPK pk = new TransactionEntityPK();
         pk.setId(transaction.getId());
@@ -0,0 +1,49 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "positions_snapshot")
+@Data
+public class PositionsSnapshotEntity {
+
+    @EmbeddedId
+    private PositionsSnapshotEntityPK pk;
+
+    @Basic
+    @Column(name = "transaction_count")
+    private int transactionCount;
+
+    @Basic
+    @Column(name = "last_transaction_timestamp")
+    private Instant lastTransactionTimestamp;
+
+    @Basic
+    @Column(name = "redemption_count")
+    private int redemptionCount;
+
+    @Basic
+    @Column(name = "positions")
+    private String positions;
+}
@@ -0,0 +1,62 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "report_digest")
+@Data
+public class ReportDigestEntity {
+
+    @Id
+    @Column(name = "sha256")
+    private String sha256;
+
+    @Basic
+    @Column(name = "portfolio")
+    private String portfolio;
+
+    @Basic
+    @Column(name = "report_date")
+    private Instant reportDate;
+
+    @Basic
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Basic
+    @Column(name = "rows_parsed")
+    private int rowsParsed;
+
+    @Basic
+    @Column(name = "rows_stored")
+    private int rowsStored;
+
+    @Basic
+    @Column(name = "duplicates_skipped")
+    private int duplicatesSkipped;
+
+    @Basic
+    @Column(name = "imported")
+    private Instant imported;
+}
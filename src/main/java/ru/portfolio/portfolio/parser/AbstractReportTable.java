@@ -19,7 +19,6 @@
 package ru.portfolio.portfolio.parser;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 
 import java.time.Instant;
 import java.util.Arrays;
@@ -66,17 +65,21 @@ public abstract class AbstractReportTable<RowType> extends InitializableReportTa
     }
 
     protected Collection<RowType> parseTable(ExcelTable table) {
-        return table.getDataCollection(getReport().getPath(), this::getRow, this::checkEquality, this::mergeDuplicates);
+        return table.getDataCollection(getReport().getPath(), this::getRow, this::getDuplicateKey, this::mergeDuplicates);
     }
 
     protected Instant convertToInstant(String dateTime) {
         return getReport().convertToInstant(dateTime);
     }
 
-    protected abstract Collection<RowType> getRow(ExcelTable table, Row row);
+    protected abstract Collection<RowType> getRow(ExcelTable table, ReportPageRow row);
 
-    protected boolean checkEquality(RowType object1, RowType object2) {
-        return object1.equals(object2);
+    /**
+     * @return key for duplicate objects detection, objects with equal keys are merged by
+     * {@link #mergeDuplicates(Object, Object)}
+     */
+    protected Object getDuplicateKey(RowType object) {
+        return object;
     }
 
     protected Collection<RowType> mergeDuplicates(RowType oldObject, RowType newObject) {
@@ -21,7 +21,6 @@ package ru.portfolio.portfolio.parser;
 import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
-import org.apache.poi.ss.usermodel.Row;
 
 import java.util.Arrays;
 
@@ -37,7 +36,7 @@ public class AnyOfTableColumn implements TableColumn {
     }
 
     @Override
-    public int getColumnIndex(int firstColumnForSearch, Row... headerRows) {
+    public int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows) {
         for (TableColumn c : columns) {
             try {
                 return c.getColumnIndex(firstColumnForSearch, headerRows);
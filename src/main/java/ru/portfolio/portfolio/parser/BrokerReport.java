@@ -18,13 +18,11 @@
 
 package ru.portfolio.portfolio.parser;
 
-import org.apache.poi.ss.usermodel.Sheet;
-
 import java.nio.file.Path;
 import java.time.Instant;
 
 public interface BrokerReport extends AutoCloseable {
-    Sheet getSheet();
+    ReportPage getSheet();
     String getPortfolio();
     Path getPath();
     Instant getReportDate();
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser;
 
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
-import org.apache.poi.ss.usermodel.Row;
 
 @ToString
 @RequiredArgsConstructor(staticName = "of")
@@ -28,7 +27,7 @@ public class ConstantPositionTableColumn implements TableColumn {
     private final int columnIndex;
 
     @Override
-    public int getColumnIndex(int firstColumnForSearch, Row... headerRows) {
+    public int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows) {
         return columnIndex;
     }
 }
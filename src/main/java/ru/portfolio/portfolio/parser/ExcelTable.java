@@ -22,9 +22,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.ss.util.CellRangeAddress;
 
@@ -32,15 +29,15 @@ import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.function.BiFunction;
-import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 import static java.util.Collections.emptyList;
 
 @Slf4j
 @ToString(of = {"tableName"})
-public class ExcelTable implements Iterable<Row> {
+public class ExcelTable implements Iterable<ReportPageRow> {
     @Getter
-    private final Sheet sheet;
+    private final ReportPage sheet;
     private final String tableName;
     @Getter
     private final CellRangeAddress tableRange;
@@ -57,17 +54,17 @@ public class ExcelTable implements Iterable<Row> {
     @Setter
     private boolean isLastTableRowContainsTotalData = false;
 
-    public static ExcelTable of(Sheet sheet, String tableName, String tableFooterString,
+    public static ExcelTable of(ReportPage sheet, String tableName, String tableFooterString,
                                 Class<? extends TableColumnDescription> headerDescription) {
         return of(sheet, tableName, tableFooterString, headerDescription, 1);
     }
 
-    public static ExcelTable of(Sheet sheet, String tableName,
+    public static ExcelTable of(ReportPage sheet, String tableName,
                                 Class<? extends TableColumnDescription> headerDescription) {
         return of(sheet, tableName, headerDescription, 1);
     }
 
-    public static ExcelTable of(Sheet sheet, String tableName, String tableFooterString,
+    public static ExcelTable of(ReportPage sheet, String tableName, String tableFooterString,
                                 Class<? extends TableColumnDescription> headerDescription,
                                 int headersRowCount) {
         ExcelTable table = new ExcelTable(sheet, tableName,
@@ -78,7 +75,7 @@ public class ExcelTable implements Iterable<Row> {
         return table;
     }
 
-    public static ExcelTable of(Sheet sheet, String tableName,
+    public static ExcelTable of(ReportPage sheet, String tableName,
                                 Class<? extends TableColumnDescription> headerDescription,
                                 int headersRowCount) {
         ExcelTable table = new ExcelTable(sheet, tableName,
@@ -89,7 +86,7 @@ public class ExcelTable implements Iterable<Row> {
         return table;
     }
 
-    public static ExcelTable ofNoName(Sheet sheet, String madeUpTableName, String firstLineText,
+    public static ExcelTable ofNoName(ReportPage sheet, String madeUpTableName, String firstLineText,
                                       Class<? extends TableColumnDescription> headerDescription,
                                       int headersRowCount) {
         CellRangeAddress range = ExcelTableHelper.getTableCellRange(sheet, firstLineText, headersRowCount);
@@ -102,7 +99,7 @@ public class ExcelTable implements Iterable<Row> {
         return table;
     }
 
-    private ExcelTable(Sheet sheet, String tableName, CellRangeAddress tableRange,
+    private ExcelTable(ReportPage sheet, String tableName, CellRangeAddress tableRange,
                        Class<? extends TableColumnDescription> headerDescription, int headersRowCount) {
         this.sheet = sheet;
         this.tableName = tableName;
@@ -115,11 +112,20 @@ public class ExcelTable implements Iterable<Row> {
                 getColumnIndices(sheet, this.tableRange, headerDescription, headersRowCount);
     }
 
-    private Map<TableColumn, Integer> getColumnIndices(Sheet sheet, CellRangeAddress tableRange,
+    private Map<TableColumn, Integer> getColumnIndices(ReportPage sheet, CellRangeAddress tableRange,
                                                        Class<? extends TableColumnDescription> headerDescription,
                                                        int headersRowCount) {
+        return sheet.getColumnIndicesCache().computeIfAbsent(
+                Arrays.asList(tableRange.getFirstRow(), headersRowCount, headerDescription),
+                key -> Collections.unmodifiableMap(
+                        resolveColumnIndices(sheet, tableRange, headerDescription, headersRowCount)));
+    }
+
+    private static Map<TableColumn, Integer> resolveColumnIndices(ReportPage sheet, CellRangeAddress tableRange,
+                                                                  Class<? extends TableColumnDescription> headerDescription,
+                                                                  int headersRowCount) {
         Map<TableColumn, Integer> columnIndices = new HashMap<>();
-        Row[] headerRows = new Row[headersRowCount];
+        ReportPageRow[] headerRows = new ReportPageRow[headersRowCount];
         for (int i = 0; i < headersRowCount; i++) {
             headerRows[i] = sheet.getRow(tableRange.getFirstRow() + 1 + i);
         }
@@ -135,7 +141,7 @@ public class ExcelTable implements Iterable<Row> {
     /**
      * Extracts exactly one object from excel row
      */
-    public <T> List<T> getData(Path file, BiFunction<ExcelTable, Row, T> rowExtractor) {
+    public <T> List<T> getData(Path file, BiFunction<ExcelTable, ReportPageRow, T> rowExtractor) {
         return getDataCollection(file, (table, row) ->
                 Optional.ofNullable(rowExtractor.apply(table, row))
                         .map(Collections::singletonList)
@@ -145,24 +151,26 @@ public class ExcelTable implements Iterable<Row> {
     /**
      * Extracts objects from excel table without duplicate objects handling (duplicated row are both will be returned)
      */
-    public <T> List<T> getDataCollection(Path file, BiFunction<ExcelTable, Row, Collection<T>> rowExtractor) {
-        return getDataCollection(file, rowExtractor, Object::equals, (older, newer) -> Arrays.asList(older, newer));
+    public <T> List<T> getDataCollection(Path file, BiFunction<ExcelTable, ReportPageRow, Collection<T>> rowExtractor) {
+        return getDataCollection(file, rowExtractor, Function.identity(), (older, newer) -> Arrays.asList(older, newer));
     }
 
     /**
-     * Extracts objects from excel table with duplicate objects handling logic
+     * Extracts objects from excel table with duplicate objects handling logic. Objects with equal keys
+     * are duplicates, result preserves order of the first duplicate object.
+     * @param keyExtractor returns object key with proper {@link Object#equals(Object)} and {@link Object#hashCode()}
      */
-    public <T> List<T> getDataCollection(Path file, BiFunction<ExcelTable, Row, Collection<T>> rowExtractor,
-                                         BiPredicate<T, T> equalityChecker,
-                                         BiFunction<T, T, Collection<T>> mergeDuplicates) {
-        List<T> data = new ArrayList<>();
-        for (Row row : this) {
+    public <T, K> List<T> getDataCollection(Path file, BiFunction<ExcelTable, ReportPageRow, Collection<T>> rowExtractor,
+                                            Function<T, K> keyExtractor,
+                                            BiFunction<T, T, Collection<T>> mergeDuplicates) {
+        Map<K, Collection<T>> data = new LinkedHashMap<>();
+        for (ReportPageRow row : this) {
             if (row != null) {
                 try {
                     Collection<T> result = rowExtractor.apply(this, row);
                     if (result != null) {
                         for (T r : result) {
-                            addWithEqualityChecker(r, data, equalityChecker, mergeDuplicates);
+                            addWithKey(r, data, keyExtractor, mergeDuplicates);
                         }
                     }
                 } catch (Exception e) {
@@ -170,32 +178,44 @@ public class ExcelTable implements Iterable<Row> {
                 }
             }
         }
-        return data;
+        return toList(data);
     }
 
-    public static <T> void addWithEqualityChecker(T eletent,
-                                           Collection<T> collection,
-                                           BiPredicate<T, T> equalityChecker,
-                                           BiFunction<T, T, Collection<T>> mergeDuplicates) {
-        T equalsObject = null;
-        for (T e : collection) {
-            if (equalityChecker.test(e, eletent)) {
-                equalsObject = e;
-                break;
-            }
-        }
-        if (equalsObject != null) {
-            collection.remove(equalsObject);
-            collection.addAll(mergeDuplicates.apply(equalsObject, eletent));
+    /**
+     * Adds element to the map of elements with same key. If the map contains element with same key,
+     * the element is replaced by merge result. Merge result is stored by its own key and is not merged again.
+     */
+    public static <T, K> void addWithKey(T element,
+                                         Map<K, Collection<T>> map,
+                                         Function<T, K> keyExtractor,
+                                         BiFunction<T, T, Collection<T>> mergeDuplicates) {
+        K key = keyExtractor.apply(element);
+        Collection<T> sameKeyElements = map.get(key);
+        if (sameKeyElements == null) {
+            map.computeIfAbsent(key, k -> new ArrayList<>(1)).add(element);
         } else {
-            collection.add(eletent);
+            Iterator<T> it = sameKeyElements.iterator();
+            T equalsObject = it.next();
+            it.remove();
+            if (sameKeyElements.isEmpty()) {
+                map.remove(key);
+            }
+            for (T merged : mergeDuplicates.apply(equalsObject, element)) {
+                map.computeIfAbsent(keyExtractor.apply(merged), k -> new ArrayList<>(1)).add(merged);
+            }
         }
     }
 
+    public static <T, K> List<T> toList(Map<K, Collection<T>> map) {
+        List<T> list = new ArrayList<>(map.size());
+        map.values().forEach(list::addAll);
+        return list;
+    }
+
     /**
      * @return row containg given value or null if not found
      */
-    public Row findRow(String value) {
+    public ReportPageRow findRow(String value) {
         CellAddress address = ExcelTableHelper.find(getSheet(), value);
         if (address == ExcelTableHelper.NOT_FOUND) {
             return null;
@@ -203,18 +223,18 @@ public class ExcelTable implements Iterable<Row> {
         return getSheet().getRow(address.getRow());
     }
 
-    public Cell getCell(Row row, TableColumnDescription columnDescription) {
+    public TableCell getCell(ReportPageRow row, TableColumnDescription columnDescription) {
         return row.getCell(columnIndices.get(columnDescription.getColumn()));
     }
 
-    public Cell getCell(CellAddress address) {
+    public TableCell getCell(CellAddress address) {
         return sheet.getRow(address.getRow()).getCell(address.getColumn());
     }
 
     /**
      * @return return cell value or defaultValue if the cell is missing or the type does not match the expected
      */
-    public int getIntCellValueOrDefault(Row row, TableColumnDescription columnDescription, int defaultValue) {
+    public int getIntCellValueOrDefault(ReportPageRow row, TableColumnDescription columnDescription, int defaultValue) {
         try {
             return getIntCellValue(row, columnDescription);
         } catch (Exception e) {
@@ -222,7 +242,7 @@ public class ExcelTable implements Iterable<Row> {
         }
     }
 
-    public int getIntCellValue(Row row, TableColumnDescription columnDescription) {
+    public int getIntCellValue(ReportPageRow row, TableColumnDescription columnDescription) {
         return (int) getLongCellValue(row, columnDescription);
     }
 
@@ -233,7 +253,7 @@ public class ExcelTable implements Iterable<Row> {
     /**
      * @return return cell value or defaultValue if the cell is missing or the type does not match the expected
      */
-    public long getLongCellValueOrDefault(Row row, TableColumnDescription columnDescription, long defaultValue) {
+    public long getLongCellValueOrDefault(ReportPageRow row, TableColumnDescription columnDescription, long defaultValue) {
         try {
             return getLongCellValue(row, columnDescription);
         } catch (Exception e) {
@@ -241,7 +261,7 @@ public class ExcelTable implements Iterable<Row> {
         }
     }
 
-    public long getLongCellValue(Row row, TableColumnDescription columnDescription) {
+    public long getLongCellValue(ReportPageRow row, TableColumnDescription columnDescription) {
         return ExcelTableHelper.getLongCellValue(getCell(row, columnDescription));
     }
 
@@ -252,7 +272,7 @@ public class ExcelTable implements Iterable<Row> {
     /**
      * @return return cell value or defaultValue if the cell is missing or the type does not match the expected
      */
-    public BigDecimal getCurrencyCellValueOrDefault(Row row, TableColumnDescription columnDescription, BigDecimal defaultValue) {
+    public BigDecimal getCurrencyCellValueOrDefault(ReportPageRow row, TableColumnDescription columnDescription, BigDecimal defaultValue) {
         try {
             return getCurrencyCellValue(row, columnDescription);
         } catch (Exception e) {
@@ -260,7 +280,7 @@ public class ExcelTable implements Iterable<Row> {
         }
     }
 
-    public BigDecimal getCurrencyCellValue(Row row, TableColumnDescription columnDescription) {
+    public BigDecimal getCurrencyCellValue(ReportPageRow row, TableColumnDescription columnDescription) {
         return ExcelTableHelper.getCurrencyCellValue(getCell(row, columnDescription));
     }
 
@@ -271,7 +291,7 @@ public class ExcelTable implements Iterable<Row> {
     /**
      * @return return cell value or defaultValue if the cell is missing or the type does not match the expected
      */
-    public String getStringCellValueOrDefault(Row row, TableColumnDescription columnDescription, String defaultValue) {
+    public String getStringCellValueOrDefault(ReportPageRow row, TableColumnDescription columnDescription, String defaultValue) {
         try {
             return getStringCellValue(row, columnDescription);
         } catch (Exception e) {
@@ -279,7 +299,7 @@ public class ExcelTable implements Iterable<Row> {
         }
     }
 
-    public String getStringCellValue(Row row, TableColumnDescription columnDescription) {
+    public String getStringCellValue(ReportPageRow row, TableColumnDescription columnDescription) {
         return ExcelTableHelper.getStringCellValue(getCell(row, columnDescription));
     }
 
@@ -288,11 +308,11 @@ public class ExcelTable implements Iterable<Row> {
     }
 
     @Override
-    public Iterator<Row> iterator() {
+    public Iterator<ReportPageRow> iterator() {
         return new ExelTableIterator();
     }
 
-    class ExelTableIterator implements Iterator<Row> {
+    class ExelTableIterator implements Iterator<ReportPageRow> {
         private final int dataRowsCount = tableRange.getLastRow() - tableRange.getFirstRow()
                 - dataRowOffset
                 + (isLastTableRowContainsTotalData ? 0 : 1);
@@ -304,8 +324,8 @@ public class ExcelTable implements Iterable<Row> {
         }
 
         @Override
-        public Row next() {
-            Row row;
+        public ReportPageRow next() {
+            ReportPageRow row;
             do {
                 row = sheet.getRow(tableRange.getFirstRow() + dataRowOffset + (cnt++));
             } while (row == null && hasNext());
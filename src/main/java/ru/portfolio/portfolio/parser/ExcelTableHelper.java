@@ -18,10 +18,7 @@
 
 package ru.portfolio.portfolio.parser;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.ss.util.CellRangeAddress;
 
@@ -35,7 +32,7 @@ public class ExcelTableHelper {
     public static final BiPredicate<String, Object> CELL_STRING_EQUALS = (cell, searchingValue) ->
             searchingValue != null && cell.trim().toLowerCase().startsWith(searchingValue.toString().trim().toLowerCase());
 
-    public static CellRangeAddress getTableCellRange(Sheet sheet, String tableName, int headersRowCount, String tableFooterString) {
+    public static CellRangeAddress getTableCellRange(ReportPage sheet, String tableName, int headersRowCount, String tableFooterString) {
         CellAddress startAddress = find(sheet, tableName);
         if (startAddress.equals(NOT_FOUND)) {
             return EMTPY_RANGE;
@@ -55,7 +52,7 @@ public class ExcelTableHelper {
     /**
      * Get table ragne, table ends with empty line
      */
-    public static CellRangeAddress getTableCellRange(Sheet sheet, String tableName, int headersRowCount) {
+    public static CellRangeAddress getTableCellRange(ReportPage sheet, String tableName, int headersRowCount) {
         CellAddress startAddress = find(sheet, tableName);
         if (startAddress.equals(NOT_FOUND)) {
             return EMTPY_RANGE;
@@ -63,11 +60,11 @@ public class ExcelTableHelper {
         int lastRowNum = startAddress.getRow() + headersRowCount + 1;
         LAST_ROW:
         for(; lastRowNum < sheet.getLastRowNum(); lastRowNum++) {
-            Row row = sheet.getRow(lastRowNum);
+            ReportPageRow row = sheet.getRow(lastRowNum);
             if (row == null || row.getLastCellNum() == 0) {
                 break; // all row cells blank
             }
-            for (Cell cell : row) {
+            for (TableCell cell : row) {
                 if (!(cell == null
                         || cell.getCellType() == CellType.BLANK
                         || (cell.getCellType() == CellType.STRING && cell.getStringCellValue().isEmpty()))) {
@@ -86,19 +83,19 @@ public class ExcelTableHelper {
                 sheet.getRow(lastRowNum).getLastCellNum());
     }
 
-    public static boolean rowContains(ExcelTable table, Row row, Object value) {
+    public static boolean rowContains(ExcelTable table, ReportPageRow row, Object value) {
         return rowContains(table.getSheet(), row.getRowNum(), value);
     }
 
-    public static boolean rowContains(Sheet sheet, int rowNum, Object value) {
+    public static boolean rowContains(ReportPage sheet, int rowNum, Object value) {
         return find(sheet, value, rowNum, rowNum + 1, String::equals) != NOT_FOUND;
     }
 
-    public static CellAddress find(Sheet sheet, Object value) {
+    public static CellAddress find(ReportPage sheet, Object value) {
         return find(sheet, value, 0);
     }
 
-    public static CellAddress find(Sheet sheet, Object value, int startRow) {
+    public static CellAddress find(ReportPage sheet, Object value, int startRow) {
         return find(sheet, value, startRow, sheet.getLastRowNum());
     }
 
@@ -106,7 +103,7 @@ public class ExcelTableHelper {
      * @param startRow search rows start from this
      * @param endRow search rows excluding this
      */
-    public static CellAddress find(Sheet sheet, Object value, int startRow, int endRow) {
+    public static CellAddress find(ReportPage sheet, Object value, int startRow, int endRow) {
         return find(sheet, value, startRow, endRow, CELL_STRING_EQUALS);
     }
 
@@ -115,7 +112,7 @@ public class ExcelTableHelper {
      * @param endRow search rows excluding this
      * @param stringPredicate cell and value comparing bi-predicate if cell value type is string
      */
-    public static CellAddress find(Sheet sheet, Object value, int startRow, int endRow, BiPredicate<String, Object> stringPredicate) {
+    public static CellAddress find(ReportPage sheet, Object value, int startRow, int endRow, BiPredicate<String, Object> stringPredicate) {
         return find(sheet, value, startRow, endRow, 0, Integer.MAX_VALUE, stringPredicate);
     }
 
@@ -126,7 +123,7 @@ public class ExcelTableHelper {
      * @param startColumn search columns start from this
      * @param endColumn search columns excluding this
      */
-    public static CellAddress find(Sheet sheet, Object value, int startRow, int endRow,
+    public static CellAddress find(ReportPage sheet, Object value, int startRow, int endRow,
                                    int startColumn, int endColumn,
                                    BiPredicate<String, Object> stringPredicate) {
         if (sheet.getLastRowNum() == -1) {
@@ -135,13 +132,15 @@ public class ExcelTableHelper {
             endRow = sheet.getLastRowNum();
         }
         CellType type = getType(value);
-        if (type == CellType.NUMERIC) {
+        if (type == CellType.STRING && stringPredicate == CELL_STRING_EQUALS) {
+            return sheet.getIndex().findByPrefix(value.toString(), startRow, endRow, startColumn, endColumn);
+        } else if (type == CellType.NUMERIC) {
             value = ((Number) value).doubleValue();
         }
         for(int rowNum = startRow; rowNum < endRow; rowNum++) {
-            Row row = sheet.getRow(rowNum);
+            ReportPageRow row = sheet.getRow(rowNum);
             if (row == null) continue;
-            for (Cell cell : row) {
+            for (TableCell cell : row) {
                 if (cell != null) {
                     int column = cell.getColumnIndex();
                     if (startColumn <= column && column < endColumn && cell.getCellType() == type) {
@@ -155,12 +154,12 @@ public class ExcelTableHelper {
         return NOT_FOUND;
     }
 
-    public static CellAddress findByPredicate(Sheet sheet, int startRow, Predicate<Cell> predicate) {
+    public static CellAddress findByPredicate(ReportPage sheet, int startRow, Predicate<TableCell> predicate) {
         int endRow = sheet.getLastRowNum();
         for(int rowNum = startRow; rowNum < endRow; rowNum++) {
-            Row row = sheet.getRow(rowNum);
+            ReportPageRow row = sheet.getRow(rowNum);
             if (row == null) continue;
-            for (Cell cell : row) {
+            for (TableCell cell : row) {
                 if (predicate.test(cell)) {
                     return cell.getAddress();
                 }
@@ -185,7 +184,7 @@ public class ExcelTableHelper {
         return type;
     }
 
-    private static boolean compare(Object value, Cell cell, BiPredicate<String, Object> stringPredicate) {
+    private static boolean compare(Object value, TableCell cell, BiPredicate<String, Object> stringPredicate) {
         switch (cell.getCellType()) {
             case BLANK:
                 if (value == null || value.equals("")) return true;
@@ -203,11 +202,11 @@ public class ExcelTableHelper {
         return false;
     }
 
-    public static Cell getCell(Sheet sheet, CellAddress address) {
+    public static TableCell getCell(ReportPage sheet, CellAddress address) {
         return sheet.getRow(address.getRow()).getCell(address.getColumn());
     }
 
-    public static long getLongCellValue(Cell cell) {
+    public static long getLongCellValue(TableCell cell) {
         CellType type = cell.getCellType();
         if (type == CellType.NUMERIC) {
             return Double.valueOf(cell.getNumericCellValue()).longValue();
@@ -216,12 +215,12 @@ public class ExcelTableHelper {
         }
     }
 
-    public static BigDecimal getCurrencyCellValue(Cell cell) {
+    public static BigDecimal getCurrencyCellValue(TableCell cell) {
         double cellValue = cell.getNumericCellValue();
         return (Math.abs(cellValue - 0.01d) < 0) ? BigDecimal.ZERO : BigDecimal.valueOf(cellValue);
     }
 
-    public static String getStringCellValue(Cell cell) {
+    public static String getStringCellValue(TableCell cell) {
         return (cell.getCellType() == CellType.BLANK) ? "" : cell.getStringCellValue();
     }
 }
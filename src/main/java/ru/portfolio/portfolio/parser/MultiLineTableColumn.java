@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser;
 
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
-import org.apache.poi.ss.usermodel.Row;
 
 /**
  * Implements table header kind of
@@ -47,14 +46,14 @@ public class MultiLineTableColumn implements TableColumn {
      * @param headerRows header rows count should be equal to count of row descriptors
      */
     @Override
-    public int getColumnIndex(int firstColumnForSearch, Row... headerRows) {
+    public int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows) {
         if (headerRows.length != rowDescriptiors.length) {
             throw new RuntimeException("Внутренняя ошибка, в таблице ожидается " + rowDescriptiors.length +
                     " строк в заголовке");
         }
         int columnIndex = firstColumnForSearch;
         int i = 0;
-        for (Row row : headerRows) {
+        for (ReportPageRow row : headerRows) {
             TableColumn rowDescriptior = rowDescriptiors[i++];
             columnIndex = rowDescriptior.getColumnIndex(columnIndex, row);
         }
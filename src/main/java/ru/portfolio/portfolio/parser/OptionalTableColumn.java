@@ -18,7 +18,6 @@
 
 package ru.portfolio.portfolio.parser;
 
-import org.apache.poi.ss.usermodel.Row;
 
 public class OptionalTableColumn implements TableColumn {
 
@@ -30,7 +29,7 @@ public class OptionalTableColumn implements TableColumn {
     }
 
     @Override
-    public int getColumnIndex(int firstColumnForSearch, Row... headerRows) {
+    public int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows) {
         return -1;
     }
 }
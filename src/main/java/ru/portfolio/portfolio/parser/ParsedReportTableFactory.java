@@ -0,0 +1,136 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import lombok.Getter;
+import ru.portfolio.portfolio.pojo.EventCashFlow;
+import ru.portfolio.portfolio.pojo.PortfolioProperty;
+import ru.portfolio.portfolio.pojo.Security;
+import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Parses all tables of delegate factory in constructor. Allows to parse report in one thread
+ * and store it in another one. Tables may be parsed concurrently, table depending on another one
+ * waits for it's parsing by {@link InitializableReportTable} lock.
+ */
+@Getter
+public class ParsedReportTableFactory implements ReportTableFactory {
+    private final BrokerReport report;
+    private final ReportTable<PortfolioCash> portfolioCashTable;
+    private final ReportTable<PortfolioProperty> portfolioPropertyTable;
+    private final ReportTable<EventCashFlow> cashFlowTable;
+    private final ReportTable<Security> portfolioSecuritiesTable;
+    private final ReportTable<SecurityTransaction> securityTransactionTable;
+    private final ReportTable<DerivativeTransaction> derivativeTransactionTable;
+    private final ReportTable<ForeignExchangeTransaction> foreignExchangeTransactionTable;
+    private final ReportTable<SecurityEventCashFlow> couponAmortizationRedemptionTable;
+    private final ReportTable<SecurityEventCashFlow> dividendTable;
+    private final ReportTable<SecurityEventCashFlow> derivativeCashFlowTable;
+
+    /**
+     * Parses tables in caller thread
+     */
+    public ParsedReportTableFactory(ReportTableFactory factory) {
+        this(factory, Runnable::run);
+    }
+
+    /**
+     * Parses tables concurrently by executor, waits for all tables parsing
+     */
+    public ParsedReportTableFactory(ReportTableFactory factory, Executor executor) {
+        this.report = factory.getReport();
+        CompletableFuture<ReportTable<PortfolioCash>> portfolioCashTable =
+                parseAsync(factory::createPortfolioCashTable, executor);
+        CompletableFuture<ReportTable<PortfolioProperty>> portfolioPropertyTable =
+                parseAsync(factory::getPortfolioPropertyTable, executor);
+        CompletableFuture<ReportTable<EventCashFlow>> cashFlowTable =
+                parseAsync(factory::getCashFlowTable, executor);
+        CompletableFuture<ReportTable<Security>> portfolioSecuritiesTable =
+                parseAsync(factory::getPortfolioSecuritiesTable, executor);
+        CompletableFuture<ReportTable<SecurityTransaction>> securityTransactionTable =
+                parseAsync(factory::getSecurityTransactionTable, executor);
+        CompletableFuture<ReportTable<DerivativeTransaction>> derivativeTransactionTable =
+                parseAsync(factory::getDerivativeTransactionTable, executor);
+        CompletableFuture<ReportTable<ForeignExchangeTransaction>> foreignExchangeTransactionTable =
+                parseAsync(factory::getForeignExchangeTransactionTable, executor);
+        CompletableFuture<ReportTable<SecurityEventCashFlow>> couponAmortizationRedemptionTable =
+                parseAsync(factory::getCouponAmortizationRedemptionTable, executor);
+        CompletableFuture<ReportTable<SecurityEventCashFlow>> dividendTable =
+                parseAsync(factory::getDividendTable, executor);
+        CompletableFuture<ReportTable<SecurityEventCashFlow>> derivativeCashFlowTable =
+                parseAsync(factory::getDerivativeCashFlowTable, executor);
+        try {
+            // report should not be closed by caller until all tables are parsed, even if some table is failed
+            CompletableFuture.allOf(portfolioCashTable, portfolioPropertyTable, cashFlowTable,
+                    portfolioSecuritiesTable, securityTransactionTable, derivativeTransactionTable,
+                    foreignExchangeTransactionTable, couponAmortizationRedemptionTable, dividendTable,
+                    derivativeCashFlowTable)
+                    .join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause : e;
+        }
+        this.portfolioCashTable = portfolioCashTable.join();
+        this.portfolioPropertyTable = portfolioPropertyTable.join();
+        this.cashFlowTable = cashFlowTable.join();
+        this.portfolioSecuritiesTable = portfolioSecuritiesTable.join();
+        this.securityTransactionTable = securityTransactionTable.join();
+        this.derivativeTransactionTable = derivativeTransactionTable.join();
+        this.foreignExchangeTransactionTable = foreignExchangeTransactionTable.join();
+        this.couponAmortizationRedemptionTable = couponAmortizationRedemptionTable.join();
+        this.dividendTable = dividendTable.join();
+        this.derivativeCashFlowTable = derivativeCashFlowTable.join();
+    }
+
+    /**
+     * @return total row count of all parsed tables
+     */
+    public int getRowCount() {
+        return portfolioCashTable.getData().size() +
+                portfolioPropertyTable.getData().size() +
+                cashFlowTable.getData().size() +
+                portfolioSecuritiesTable.getData().size() +
+                securityTransactionTable.getData().size() +
+                derivativeTransactionTable.getData().size() +
+                foreignExchangeTransactionTable.getData().size() +
+                couponAmortizationRedemptionTable.getData().size() +
+                dividendTable.getData().size() +
+                derivativeCashFlowTable.getData().size();
+    }
+
+    private static <T> CompletableFuture<ReportTable<T>> parseAsync(Supplier<ReportTable<T>> tableSupplier,
+                                                                    Executor executor) {
+        return CompletableFuture.supplyAsync(() -> parse(tableSupplier.get()), executor);
+    }
+
+    private static <T> ReportTable<T> parse(ReportTable<T> table) {
+        return new WrappingReportTable<>(table.getReport(), table.getData());
+    }
+
+    @Override
+    public ReportTable<PortfolioCash> createPortfolioCashTable() {
+        return portfolioCashTable;
+    }
+}
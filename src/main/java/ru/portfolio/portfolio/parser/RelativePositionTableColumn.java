@@ -21,7 +21,6 @@ package ru.portfolio.portfolio.parser;
 
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
-import org.apache.poi.ss.usermodel.Row;
 
 @ToString
 @RequiredArgsConstructor(staticName = "of")
@@ -30,7 +29,7 @@ public class RelativePositionTableColumn implements TableColumn {
     private final int relatedOffset;
 
     @Override
-    public int getColumnIndex(int firstColumnForSearch, Row... headerRows) {
+    public int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows) {
         return releatedTableColumn.getColumnIndex(firstColumnForSearch, headerRows) + relatedOffset;
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Import progress of one uploaded report file. Updated by import threads, read by status requests.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReportImportFile {
+    public enum Status {QUEUED, PARSING, STORING, DONE, FAILED, SKIPPED}
+
+    private final String fileName;
+    @JsonIgnore
+    private final Path backup;
+    private final String sha256;
+    private volatile Status status = Status.QUEUED;
+    // backup with the same content already exists
+    private volatile boolean uploadedBefore;
+    private volatile int rowsParsed;
+    @Getter(onMethod_ = @JsonIgnore)
+    private final AtomicInteger storedRowsCounter = new AtomicInteger();
+    @Getter(onMethod_ = @JsonIgnore)
+    private final AtomicInteger duplicatesCounter = new AtomicInteger();
+    @Getter(onMethod_ = @JsonIgnore)
+    private final AtomicInteger failedRowsCounter = new AtomicInteger();
+    private volatile String error;
+    @JsonIgnore
+    private volatile Exception exception;
+    @JsonIgnore
+    private volatile long startNanos;
+    @JsonIgnore
+    private volatile long endNanos;
+
+    void uploadedBefore() {
+        uploadedBefore = true;
+    }
+
+    /**
+     * Report with the same content is already imported
+     */
+    void skipped() {
+        status = Status.SKIPPED;
+    }
+
+    void parsing() {
+        startNanos = System.nanoTime();
+        status = Status.PARSING;
+    }
+
+    /**
+     * @param rowsParsed rows of the next stored report, zip archive file has several reports
+     */
+    void storing(int rowsParsed) {
+        this.rowsParsed += rowsParsed;
+        status = Status.STORING;
+    }
+
+    void done() {
+        endNanos = System.nanoTime();
+        status = Status.DONE;
+    }
+
+    void failed(Exception exception) {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+        endNanos = System.nanoTime();
+        this.exception = exception;
+        this.error = exception.getMessage();
+        status = Status.FAILED;
+    }
+
+    public int getRowsStored() {
+        return storedRowsCounter.get();
+    }
+
+    public int getDuplicatesSkipped() {
+        return duplicatesCounter.get();
+    }
+
+    /**
+     * @return count of rows not stored because of DB errors
+     */
+    public int getRowsFailed() {
+        return failedRowsCounter.get();
+    }
+
+    public long getElapsedMillis() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = (endNanos != 0) ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import ru.portfolio.portfolio.entity.ReportDigestEntity;
+import ru.portfolio.portfolio.parser.psb.PsbBrokerReport;
+import ru.portfolio.portfolio.parser.psb.PsbReportTableFactory;
+import ru.portfolio.portfolio.parser.uralsib.UralsibBrokerReport;
+import ru.portfolio.portfolio.parser.uralsib.UralsibReportTableFactory;
+import ru.portfolio.portfolio.repository.ReportDigestRepository;
+import ru.portfolio.portfolio.view.ForeignExchangeRateService;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Saves uploaded reports to backup directory and imports them from backups synchronously or in background job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportImportService {
+    private static final Path reportBackupPath = Paths.get(
+            System.getProperty("user.home", ""),
+            "portfolio-report-backups");
+    private static final int PARSER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // parsed, but not stored reports are kept in memory, limit their count
+    private static final int MAX_PARSING_REPORTS = 2 * PARSER_THREADS;
+    private static final int MAX_KEPT_JOBS = 100;
+    // report date of archive entry is searched in first rows of report
+    private static final int REPORT_HEADER_ROWS = 100;
+    private final ReportParserService reportParserService;
+    private final ReportTableStorage reportTableStorage;
+    private final ForeignExchangeRateService foreignExchangeRateService;
+    private final ReportDigestRepository reportDigestRepository;
+    private final ExecutorService reportParserExecutor = Executors.newFixedThreadPool(PARSER_THREADS);
+    // tables of a report are parsed concurrently
+    private final ForkJoinPool reportTableParserPool = new ForkJoinPool(PARSER_THREADS);
+    // one job at a time, jobs are stored in submission order, synchronously imported jobs are queued too
+    private final ExecutorService importJobExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, ReportImportJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<String, ReportImportJob>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ReportImportJob> eldest) {
+                    return size() > MAX_KEPT_JOBS && eldest.getValue().isFinished();
+                }
+            });
+
+    /**
+     * Saves reports to backup directory. Reports should be saved before http request completion.
+     * Reports with already imported content are skipped without parsing. Job is not registered until submitted.
+     */
+    public ReportImportJob createJob(BrockerType brocker, MultipartFile[] reports) {
+        List<ReportImportFile> files = new ArrayList<>();
+        for (MultipartFile report : reports) {
+            if (report == null || report.isEmpty()) {
+                continue;
+            }
+            try {
+                Backup backup = saveToBackup(brocker, report);
+                ReportImportFile file = new ReportImportFile(report.getOriginalFilename(), backup.getPath(),
+                        backup.getSha256());
+                if (backup.isExisted()) {
+                    file.uploadedBefore();
+                    if (reportDigestRepository.existsById(backup.getSha256())) {
+                        log.info("Отчет {} уже загружен ранее, пропускаю его", report.getOriginalFilename());
+                        file.skipped();
+                    } else {
+                        log.info("Отчет {} уже загружался ранее, бекап {}", report.getOriginalFilename(),
+                                backup.getPath());
+                    }
+                }
+                files.add(file);
+            } catch (Exception e) {
+                String error = "Не могу сохранить бекап отчета " + report.getOriginalFilename();
+                log.warn(error, e);
+                ReportImportFile file = new ReportImportFile(report.getOriginalFilename(), null, null);
+                file.failed(new RuntimeException(error, e));
+                files.add(file);
+            }
+        }
+        return new ReportImportJob(UUID.randomUUID().toString(), brocker, files);
+    }
+
+    /**
+     * Imports job reports in background, job status is available by {@link #getJob(String)}
+     */
+    public void submit(ReportImportJob job) {
+        jobs.put(job.getId(), job);
+        importJobExecutor.submit(() -> doImportReports(job));
+    }
+
+    /**
+     * Imports job reports after previously submitted jobs and waits for import completion
+     */
+    public void importReports(ReportImportJob job) throws InterruptedException {
+        try {
+            importJobExecutor.submit(() -> doImportReports(job)).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Ошибка загрузки отчетов", e.getCause());
+        }
+    }
+
+    public Optional<ReportImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Reports and zip archive entries are parsed concurrently, each archive entry is counted
+     * in parsing reports limit. Reports are stored in uploading order, archive entries are stored
+     * in report date order.
+     */
+    private void doImportReports(ReportImportJob job) {
+        Iterator<ReportImportFile> fileIterator = job.getFiles().iterator();
+        Deque<ParsingReport> queuedReports = new ArrayDeque<>();
+        Deque<ParsingReport> parsingReports = new ArrayDeque<>();
+        try {
+            while (fileIterator.hasNext() || !queuedReports.isEmpty() || !parsingReports.isEmpty()) {
+                while (parsingReports.size() < MAX_PARSING_REPORTS &&
+                        (fileIterator.hasNext() || !queuedReports.isEmpty())) {
+                    if (queuedReports.isEmpty()) {
+                        queuedReports.addAll(getReports(job.getBrocker(), fileIterator.next()));
+                    } else {
+                        ParsingReport report = queuedReports.poll();
+                        report.setFuture(reportParserExecutor.submit(() -> parseReport(job.getBrocker(), report)));
+                        parsingReports.add(report);
+                    }
+                }
+                ParsingReport parsingReport = parsingReports.poll();
+                if (parsingReport != null) {
+                    storeReport(parsingReport);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (ParsingReport report : parsingReports) {
+                report.getFuture().cancel(true);
+            }
+            parsingReports.addAll(queuedReports);
+            for (ParsingReport report : parsingReports) {
+                report.getImportingFile().closeArchive();
+                report.getImportingFile().getFile().failed(e);
+            }
+            while (fileIterator.hasNext()) {
+                fileIterator.next().failed(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importJobExecutor.shutdownNow();
+        reportParserExecutor.shutdownNow();
+        reportTableParserPool.shutdownNow();
+    }
+
+    /**
+     * Copies uploaded file to backup directory in one pass. Backup is named by SHA-256 of the content,
+     * so repeatedly uploaded report is not copied twice.
+     */
+    private Backup saveToBackup(BrockerType brocker, MultipartFile report) throws IOException {
+        Path backupPath = reportBackupPath.resolve(brocker.name().toLowerCase());
+        Files.createDirectories(backupPath);
+        Path tempFile = Files.createTempFile(backupPath, "upload-", ".tmp");
+        try {
+            MessageDigest digest = getSha256Digest();
+            try (InputStream is = new DigestInputStream(report.getInputStream(), digest)) {
+                Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = toHex(digest.digest());
+            Path path = backupPath.resolve(sha256 + getExtension(report.getOriginalFilename()));
+            if (Files.exists(path)) {
+                return new Backup(path, sha256, true);
+            }
+            try {
+                Files.move(tempFile, path);
+                return new Backup(path, sha256, false);
+            } catch (FileAlreadyExistsException e) {
+                return new Backup(path, sha256, true); // same report is concurrently uploaded
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static MessageDigest getSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 не поддерживается JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        return String.format("%0" + (hash.length * 2) + "x", new BigInteger(1, hash));
+    }
+
+    /**
+     * @return file name extension with leading dot or empty string
+     */
+    private static String getExtension(String fileName) {
+        int dot = (fileName == null) ? -1 : fileName.lastIndexOf('.');
+        return (dot == -1) ? "" : fileName.substring(dot).toLowerCase();
+    }
+
+    /**
+     * @return report of file or reports of zip archive file ordered by report date, empty list if file can't be opened
+     */
+    private List<ParsingReport> getReports(BrockerType brocker, ReportImportFile file) throws InterruptedException {
+        if (file.getStatus() != ReportImportFile.Status.QUEUED) {
+            return Collections.emptyList();
+        }
+        file.parsing();
+        String fileName = getFileName(file);
+        if (brocker == BrockerType.URALSIB && !fileName.contains("_invest_")) {
+            log.warn("Рекомендуется загружать отчеты содержащие в имени файла слово 'invest'");
+        }
+        if (!fileName.toLowerCase().endsWith(".zip")) {
+            return Collections.singletonList(new ParsingReport(new ImportingFile(file, null, 1), fileName, null));
+        }
+        ZipFile archive = null;
+        try {
+            // entries are read concurrently from random access archive file, not from zip stream
+            archive = new ZipFile(file.getBackup().toFile());
+            List<ZipEntry> entries = getReportEntriesOrderedByDate(brocker, archive);
+            if (entries.isEmpty()) {
+                throw new IllegalArgumentException("В архиве " + fileName + " не найдено отчетов");
+            }
+            ImportingFile importingFile = new ImportingFile(file, archive, entries.size());
+            return entries.stream()
+                    .map(entry -> new ParsingReport(importingFile, Paths.get(entry.getName()).getFileName().toString(), entry))
+                    .collect(Collectors.toList());
+        } catch (InterruptedException e) {
+            closeArchive(archive, file);
+            file.failed(e);
+            throw e;
+        } catch (Exception e) {
+            closeArchive(archive, file);
+            String error = "Не могу открыть zip архив " + fileName;
+            log.warn(error, e);
+            file.failed(new RuntimeException(error, e));
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Report dates are read concurrently from entry headers, whole entry is parsed only if header
+     * doesn't contain report date. Entries failed to parse are placed at the end,
+     * their errors are reported by later parsing.
+     */
+    private List<ZipEntry> getReportEntriesOrderedByDate(BrockerType brocker, ZipFile archive)
+            throws InterruptedException {
+        List<ZipEntry> entries = archive.stream()
+                .filter(entry -> !entry.isDirectory() && isExcelFile(entry.getName()))
+                .collect(Collectors.toList());
+        if (entries.size() < 2) {
+            return entries;
+        }
+        Map<ZipEntry, Future<Instant>> futures = new HashMap<>();
+        for (ZipEntry entry : entries) {
+            futures.put(entry, reportParserExecutor.submit(() -> {
+                String fileName = Paths.get(entry.getName()).getFileName().toString();
+                try (InputStream is = archive.getInputStream(entry)) {
+                    return getReportDate(brocker, ReportPageReader.read(fileName, is, REPORT_HEADER_ROWS));
+                } catch (Exception e) {
+                    log.debug("Дата отчета {} не найдена в заголовке, читаю отчет целиком", fileName, e);
+                }
+                try (InputStream is = archive.getInputStream(entry);
+                     BrokerReport report = createBrokerReport(brocker, fileName, is)) {
+                    return report.getReportDate();
+                }
+            }));
+        }
+        Map<ZipEntry, Instant> reportDates = new HashMap<>();
+        try {
+            for (ZipEntry entry : entries) {
+                try {
+                    reportDates.put(entry, futures.get(entry).get());
+                } catch (ExecutionException e) {
+                    reportDates.put(entry, null);
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            throw e;
+        }
+        entries.sort(Comparator.comparing(reportDates::get, Comparator.nullsLast(Comparator.naturalOrder())));
+        return entries;
+    }
+
+    /**
+     * @return factory with parsed tables
+     */
+    private ReportTableFactory parseReport(BrockerType brocker, ParsingReport parsingReport) {
+        BrokerReport brockerReport = null;
+        try (InputStream is = parsingReport.openInputStream()) {
+            brockerReport = createBrokerReport(brocker, parsingReport.getFileName(), is);
+            switch (brocker) {
+                case PSB:
+                    return new ParsedReportTableFactory(
+                            new PsbReportTableFactory((PsbBrokerReport) brockerReport),
+                            reportTableParserPool);
+                case URALSIB:
+                    return new ParsedReportTableFactory(
+                            new UralsibReportTableFactory((UralsibBrokerReport) brockerReport, foreignExchangeRateService),
+                            reportTableParserPool);
+                default:
+                    throw new IllegalArgumentException("Неизвестный формат " + brocker);
+            }
+        } catch (Exception e) {
+            close(brockerReport);
+            String error = "Произошла ошибка парсинга отчета " + parsingReport.getFileName();
+            log.warn(error, e);
+            throw new RuntimeException(error, e);
+        }
+    }
+
+    private static Instant getReportDate(BrockerType brocker, ReportPage header) {
+        switch (brocker) {
+            case PSB:
+                return PsbBrokerReport.getReportDate(header);
+            case URALSIB:
+                return UralsibBrokerReport.getReportDate(header);
+            default:
+                throw new IllegalArgumentException("Неизвестный формат " + brocker);
+        }
+    }
+
+    private static BrokerReport createBrokerReport(BrockerType brocker, String fileName, InputStream is)
+            throws IOException {
+        switch (brocker) {
+            case PSB:
+                return new PsbBrokerReport(fileName, is);
+            case URALSIB:
+                return new UralsibBrokerReport(fileName, is);
+            default:
+                throw new IllegalArgumentException("Неизвестный формат " + brocker);
+        }
+    }
+
+    private static boolean isExcelFile(String fileName) {
+        String name = fileName.toLowerCase();
+        return name.endsWith(".xlsx") || name.endsWith(".xls");
+    }
+
+    /**
+     * Stores parsed report. Uploaded file is finished after its last report is stored,
+     * file is failed if any of its reports is not parsed or stored.
+     */
+    private void storeReport(ParsingReport parsingReport) throws InterruptedException {
+        ImportingFile importingFile = parsingReport.getImportingFile();
+        ReportImportFile file = importingFile.getFile();
+        try {
+            ReportTableFactory reportTableFactory;
+            try {
+                reportTableFactory = parsingReport.getFuture().get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+            }
+            try {
+                file.storing((reportTableFactory instanceof ParsedReportTableFactory) ?
+                        ((ParsedReportTableFactory) reportTableFactory).getRowCount() :
+                        0);
+                reportTableStorage.setImportFile(file);
+                reportParserService.parse(reportTableFactory);
+                importingFile.setLastReport(reportTableFactory.getReport());
+            } catch (Exception e) {
+                String error = "Произошла ошибка парсинга отчета " + parsingReport.getFileName();
+                log.warn(error, e);
+                throw new RuntimeException(error, e);
+            } finally {
+                reportTableStorage.removeImportFile();
+                close(reportTableFactory.getReport());
+            }
+        } catch (RuntimeException e) {
+            if (importingFile.getException() == null) {
+                importingFile.setException(e);
+            }
+        }
+        importingFile.reportFinished();
+        if (importingFile.isFinished()) {
+            importingFile.closeArchive();
+            if (importingFile.getException() != null) {
+                file.failed(importingFile.getException());
+            } else {
+                saveDigest(file, importingFile.getLastReport());
+                log.info("Загрузка отчета {} завершена за {}, бекап отчета сохранен в {}", file.getFileName(),
+                        Duration.ofMillis(file.getElapsedMillis()),
+                        file.getBackup().toAbsolutePath());
+                file.done();
+            }
+        }
+    }
+
+    /**
+     * Remembers imported report content, report with the same content will not be parsed again.
+     * Partially stored report is not remembered, so it can be repaired by uploading again.
+     */
+    private void saveDigest(ReportImportFile report, BrokerReport brokerReport) {
+        if (report.getSha256() == null) {
+            return;
+        } else if (report.getRowsFailed() > 0) {
+            log.warn("Отчет {} сохранен не полностью, не сохранено {} записей", report.getFileName(),
+                    report.getRowsFailed());
+            return;
+        }
+        try {
+            ReportDigestEntity entity = new ReportDigestEntity();
+            entity.setSha256(report.getSha256());
+            entity.setPortfolio(brokerReport.getPortfolio());
+            entity.setReportDate(brokerReport.getReportDate());
+            entity.setFileName(report.getFileName());
+            entity.setRowsParsed(report.getRowsParsed());
+            entity.setRowsStored(report.getRowsStored());
+            entity.setDuplicatesSkipped(report.getDuplicatesSkipped());
+            entity.setImported(Instant.now());
+            reportDigestRepository.save(entity);
+        } catch (Exception e) {
+            log.warn("Не могу сохранить контрольную сумму отчета {}", report.getFileName(), e);
+        }
+    }
+
+    private static String getFileName(ReportImportFile report) {
+        return (report.getFileName() != null) ? report.getFileName() : report.getBackup().getFileName().toString();
+    }
+
+    private static void close(BrokerReport report) {
+        try {
+            if (report != null) {
+                report.close();
+            }
+        } catch (Exception e) {
+            log.warn("Не могу закрыть отчет {}", report.getPath(), e);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Backup {
+        private final Path path;
+        private final String sha256;
+        private final boolean existed;
+    }
+
+    private static void closeArchive(@Nullable ZipFile archive, ReportImportFile file) {
+        try {
+            if (archive != null) {
+                archive.close();
+            }
+        } catch (IOException e) {
+            log.warn("Не могу закрыть архив {}", file.getBackup(), e);
+        }
+    }
+
+    /**
+     * Uploaded file being imported, zip archive file consists of several reports
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class ImportingFile {
+        private final ReportImportFile file;
+        @Nullable
+        private final ZipFile archive;
+        private final int reportCount;
+        private int finishedReportCount;
+        // the first error of file reports
+        @Setter
+        private RuntimeException exception;
+        @Setter
+        private BrokerReport lastReport;
+
+        void reportFinished() {
+            finishedReportCount++;
+        }
+
+        boolean isFinished() {
+            return finishedReportCount >= reportCount;
+        }
+
+        void closeArchive() {
+            ReportImportService.closeArchive(archive, file);
+        }
+    }
+
+    /**
+     * Report file or zip archive entry, unit of parsing
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class ParsingReport {
+        private final ImportingFile importingFile;
+        private final String fileName;
+        @Nullable
+        private final ZipEntry entry;
+        @Setter
+        private Future<ReportTableFactory> future;
+
+        InputStream openInputStream() throws IOException {
+            ZipFile archive = importingFile.getArchive();
+            return (entry == null || archive == null) ?
+                    Files.newInputStream(importingFile.getFile().getBackup()) :
+                    archive.getInputStream(entry);
+        }
+    }
+}
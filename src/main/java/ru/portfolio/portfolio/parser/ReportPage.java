@@ -0,0 +1,75 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lightweight read-only copy of report sheet values, see {@link ReportPageReader}.
+ */
+public class ReportPage {
+    /**
+     * Rows indexed by row number, null for missing row
+     */
+    private final List<ReportPageRow> rows;
+    private volatile ReportPageIndex index;
+    /**
+     * Resolved table column indices by (first header row, header rows count, table header description class)
+     */
+    private final Map<Object, Map<TableColumn, Integer>> columnIndices = new ConcurrentHashMap<>();
+
+    ReportPage(List<ReportPageRow> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @return row or null if row is missing
+     */
+    public ReportPageRow getRow(int rowNum) {
+        return (rowNum >= 0 && rowNum < rows.size()) ? rows.get(rowNum) : null;
+    }
+
+    /**
+     * @return last row index or -1 if sheet is empty
+     */
+    public int getLastRowNum() {
+        return rows.size() - 1;
+    }
+
+    /**
+     * @return string cells index, built at first call
+     */
+    ReportPageIndex getIndex() {
+        if (index == null) {
+            synchronized (this) {
+                if (index == null) {
+                    index = new ReportPageIndex(this);
+                }
+            }
+        }
+        return index;
+    }
+
+    Map<Object, Map<TableColumn, Integer>> getColumnIndicesCache() {
+        return columnIndices;
+    }
+}
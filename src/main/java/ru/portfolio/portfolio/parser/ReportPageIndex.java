@@ -0,0 +1,79 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.util.CellAddress;
+
+import java.util.*;
+
+/**
+ * Index of string cells of {@link ReportPage}, built by single sheet pass.
+ * Key is trimmed lower case cell value, values are cells in row-major order.
+ */
+class ReportPageIndex {
+    private final NavigableMap<String, List<TableCell>> cells = new TreeMap<>();
+
+    ReportPageIndex(ReportPage page) {
+        for (int rowNum = 0; rowNum <= page.getLastRowNum(); rowNum++) {
+            ReportPageRow row = page.getRow(rowNum);
+            if (row == null) continue;
+            for (TableCell cell : row) {
+                if (cell.getCellType() == CellType.STRING) {
+                    cells.computeIfAbsent(normalize(cell.getStringCellValue()), k -> new ArrayList<>(1))
+                            .add(cell);
+                }
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase();
+    }
+
+    /**
+     * Finds first cell in row-major order, which normalized value starts with normalized prefix
+     * (same as {@link ExcelTableHelper#CELL_STRING_EQUALS} predicate).
+     * @param startRow search rows start from this
+     * @param endRow search rows excluding this
+     * @param startColumn search columns start from this
+     * @param endColumn search columns excluding this
+     */
+    CellAddress findByPrefix(String prefix, int startRow, int endRow, int startColumn, int endColumn) {
+        String key = normalize(prefix);
+        TableCell result = null;
+        for (List<TableCell> candidates : cells.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            for (TableCell cell : candidates) {
+                int row = cell.getRowIndex();
+                if (row >= endRow || (result != null && row > result.getRowIndex())) {
+                    break;
+                }
+                int column = cell.getColumnIndex();
+                if (row >= startRow && startColumn <= column && column < endColumn) {
+                    if (result == null || row < result.getRowIndex() || column < result.getColumnIndex()) {
+                        result = cell;
+                    }
+                    break;
+                }
+            }
+        }
+        return (result == null) ? ExcelTableHelper.NOT_FOUND : result.getAddress();
+    }
+}
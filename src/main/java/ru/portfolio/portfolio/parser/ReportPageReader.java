@@ -0,0 +1,287 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads first sheet of excel file to {@link ReportPage}. Xlsx files are read by SAX parser (POI event API)
+ * without building workbook DOM, only cell values are kept in memory.
+ */
+public class ReportPageReader {
+
+    private ReportPageReader() {
+    }
+
+    public static ReportPage read(Path exelFile) throws IOException {
+        String exelFileName = exelFile.getFileName().toString();
+        if (exelFileName.endsWith(".xls")) {
+            return read(exelFileName, Files.newInputStream(exelFile));
+        } else {
+            return readXlsx(exelFile);
+        }
+    }
+
+    public static ReportPage read(String exelFileName, InputStream is) throws IOException {
+        return read(exelFileName, is, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads first rows of the sheet only, xlsx sheet xml is not parsed after them
+     *
+     * @param maxRows count of rows from the top of the sheet
+     */
+    public static ReportPage read(String exelFileName, InputStream is, int maxRows) throws IOException {
+        if (exelFileName.endsWith(".xls")) {
+            try (Workbook book = new HSSFWorkbook(is)) { // constructor close is
+                return copyOf(book.getSheetAt(0), maxRows);
+            }
+        } else {
+            // Don't use OPCPackage.open(is), it buffers all unzipped package parts in memory
+            Path tempFile = Files.createTempFile("report", ".xlsx");
+            try {
+                Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                return readXlsx(tempFile, maxRows);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    public static ReportPage readXlsx(Path xlsxFile) throws IOException {
+        return readXlsx(xlsxFile, Integer.MAX_VALUE);
+    }
+
+    private static ReportPage readXlsx(Path xlsxFile, int maxRows) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(xlsxFile.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            XlsxSheetHandler handler = new XlsxSheetHandler(new ReadOnlySharedStringsTable(pkg, false), maxRows);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Файл " + xlsxFile.getFileName() + " не содержит листов");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = SAXHelper.newXMLReader();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(sheet));
+            } catch (RowLimitReachedException ignore) {
+            }
+            return new ReportPage(handler.getRows());
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Не могу прочитать файл " + xlsxFile.getFileName(), e);
+        }
+    }
+
+    private static ReportPage copyOf(Sheet sheet, int maxRows) {
+        List<ReportPageRow> rows = new ArrayList<>();
+        for (Row row : sheet) {
+            int rowNum = row.getRowNum();
+            if (rowNum >= maxRows) {
+                break;
+            }
+            List<TableCell> cells = new ArrayList<>();
+            for (Cell cell : row) {
+                cells.add(copyOf(cell));
+            }
+            addRow(rows, rowNum, cells);
+        }
+        return new ReportPage(rows);
+    }
+
+    private static TableCell copyOf(Cell cell) {
+        CellType type = cell.getCellType();
+        CellType valueType = (type == CellType.FORMULA) ? cell.getCachedFormulaResultType() : type;
+        Object value;
+        switch (valueType) {
+            case STRING:
+                value = cell.getStringCellValue();
+                break;
+            case NUMERIC:
+                value = cell.getNumericCellValue();
+                break;
+            case BOOLEAN:
+                value = cell.getBooleanCellValue();
+                break;
+            default:
+                value = null;
+        }
+        return new TableCell(cell.getRowIndex(), cell.getColumnIndex(), type, value);
+    }
+
+    private static void addRow(List<ReportPageRow> rows, int rowNum, List<TableCell> cells) {
+        int size = cells.stream()
+                .mapToInt(TableCell::getColumnIndex)
+                .max()
+                .orElse(-1) + 1;
+        TableCell[] array = new TableCell[size];
+        for (TableCell cell : cells) {
+            array[cell.getColumnIndex()] = cell;
+        }
+        while (rows.size() < rowNum) {
+            rows.add(null);
+        }
+        rows.add(new ReportPageRow(rowNum, array));
+    }
+
+    /**
+     * Handles sheet xml kind of
+     * <pre>
+     * &lt;row r="1"&gt;&lt;c r="A1" t="s"&gt;&lt;v&gt;0&lt;/v&gt;&lt;/c&gt;&lt;c r="B1"&gt;&lt;f&gt;A2+1&lt;/f&gt;&lt;v&gt;2&lt;/v&gt;&lt;/c&gt;&lt;/row&gt;
+     * </pre>
+     */
+    private static class XlsxSheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final int maxRows;
+        private final List<ReportPageRow> rows = new ArrayList<>();
+        private final List<TableCell> cells = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private int rowNum = -1;
+        private int column;
+        private String type;
+        private boolean isFormula;
+        private boolean isValue;
+        private boolean isText;
+
+        XlsxSheetHandler(ReadOnlySharedStringsTable sharedStrings, int maxRows) {
+            this.sharedStrings = sharedStrings;
+            this.maxRows = maxRows;
+        }
+
+        List<ReportPageRow> getRows() {
+            return rows;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowNum = (r != null) ? (Integer.parseInt(r) - 1) : (rowNum + 1);
+                    if (rowNum >= maxRows) {
+                        throw new RowLimitReachedException();
+                    }
+                    cells.clear();
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = (ref != null) ?
+                            new CellReference(ref).getCol() :
+                            (cells.isEmpty() ? 0 : cells.get(cells.size() - 1).getColumnIndex() + 1);
+                    type = attributes.getValue("t");
+                    isFormula = false;
+                    text.setLength(0);
+                    break;
+                case "f":
+                    isFormula = true;
+                    break;
+                case "v":
+                    isValue = true;
+                    break;
+                case "t":
+                    isText = "inlineStr".equals(type);
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (isValue || isText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                    isValue = false;
+                    break;
+                case "t":
+                    isText = false;
+                    break;
+                case "c":
+                    cells.add(getCell());
+                    break;
+                case "row":
+                    addRow(rows, rowNum, cells);
+                    break;
+            }
+        }
+
+        private TableCell getCell() {
+            String content = text.toString();
+            CellType valueType;
+            Object value;
+            if (type == null || type.equals("n")) {
+                valueType = content.isEmpty() ? CellType.BLANK : CellType.NUMERIC;
+                value = content.isEmpty() ? null : Double.parseDouble(content);
+            } else if (type.equals("s")) {
+                valueType = content.isEmpty() ? CellType.BLANK : CellType.STRING;
+                value = content.isEmpty() ? null : sharedStrings.getItemAt(Integer.parseInt(content)).getString();
+            } else if (type.equals("str") || type.equals("inlineStr")) {
+                valueType = CellType.STRING;
+                value = content;
+            } else if (type.equals("b")) {
+                valueType = CellType.BOOLEAN;
+                value = content.equals("1");
+            } else if (type.equals("e")) {
+                valueType = CellType.ERROR;
+                value = null;
+            } else {
+                throw new IllegalArgumentException("Неизвестный тип ячейки '" + type + "' в строке " + (rowNum + 1));
+            }
+            return new TableCell(rowNum, column, isFormula ? CellType.FORMULA : valueType, value);
+        }
+    }
+
+    /**
+     * Stops SAX parsing of the sheet
+     */
+    private static class RowLimitReachedException extends SAXException {
+    }
+}
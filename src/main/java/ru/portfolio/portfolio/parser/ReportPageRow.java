@@ -0,0 +1,95 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only row of {@link ReportPage}. Iterates over existing cells only, in column order.
+ */
+public class ReportPageRow implements Iterable<TableCell> {
+    private static final TableCell[] NO_CELLS = new TableCell[0];
+    @Getter
+    private final int rowNum;
+    /**
+     * Cells indexed by column, null for missing cell
+     */
+    private final TableCell[] cells;
+
+    ReportPageRow(int rowNum, TableCell[] cells) {
+        this.rowNum = rowNum;
+        this.cells = (cells.length == 0) ? NO_CELLS : cells;
+    }
+
+    /**
+     * @return cell or null if cell is missing
+     */
+    public TableCell getCell(int column) {
+        if (column < 0) {
+            throw new IllegalArgumentException("Индекс ячейки должен быть >= 0");
+        }
+        return (column < cells.length) ? cells[column] : null;
+    }
+
+    /**
+     * @return first cell index or -1 if row has no cells
+     */
+    public short getFirstCellNum() {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != null) return (short) i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return last cell index PLUS ONE or -1 if row has no cells
+     */
+    public short getLastCellNum() {
+        return (short) ((cells.length == 0) ? -1 : cells.length);
+    }
+
+    @Override
+    public Iterator<TableCell> iterator() {
+        return new Iterator<>() {
+            private int i = nextIndex(0);
+
+            @Override
+            public boolean hasNext() {
+                return i < cells.length;
+            }
+
+            @Override
+            public TableCell next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                TableCell cell = cells[i];
+                i = nextIndex(i + 1);
+                return cell;
+            }
+
+            private int nextIndex(int from) {
+                while (from < cells.length && cells[from] == null) from++;
+                return from;
+            }
+        };
+    }
+}
@@ -21,54 +21,74 @@ package ru.portfolio.portfolio.parser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.portfolio.portfolio.pojo.*;
 
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ReportParserService {
     private final ReportTableStorage storage;
 
+    /**
+     * Stores report tables in one transaction, positions snapshots are updated after commit
+     */
+    @Transactional
     public void parse(ReportTableFactory reportTableFactory) {
         try {
-            boolean isAdded = storage.addPortfolio(Portfolio.builder()
+            storage.addPortfolio(Portfolio.builder()
                     .id(reportTableFactory.getReport().getPortfolio())
                     .build());
-            if (isAdded) {
-                ReportTable<PortfolioCash> portfolioCashTable = reportTableFactory.createPortfolioCashTable();
-                ReportTable<PortfolioProperty> portfolioPropertyTable = reportTableFactory.getPortfolioPropertyTable();
-                ReportTable<EventCashFlow> cashFlowTable = reportTableFactory.getCashFlowTable();
-                ReportTable<Security> portfolioSecuritiesTable = reportTableFactory.getPortfolioSecuritiesTable();
-                ReportTable<SecurityTransaction> securityTransactionTable = reportTableFactory.getSecurityTransactionTable();
-                ReportTable<SecurityEventCashFlow> couponAndAmortizationTable = reportTableFactory.getCouponAmortizationRedemptionTable();
-                ReportTable<SecurityEventCashFlow> dividendTable = reportTableFactory.getDividendTable();
-                ReportTable<DerivativeTransaction> derivativeTransactionTable = reportTableFactory.getDerivativeTransactionTable();
-                ReportTable<SecurityEventCashFlow> derivativeCashFlowTable = reportTableFactory.getDerivativeCashFlowTable();
-                ReportTable<ForeignExchangeTransaction> fxTransactionTable = reportTableFactory.getForeignExchangeTransactionTable();
+            ReportTable<PortfolioCash> portfolioCashTable = reportTableFactory.createPortfolioCashTable();
+            ReportTable<PortfolioProperty> portfolioPropertyTable = reportTableFactory.getPortfolioPropertyTable();
+            ReportTable<EventCashFlow> cashFlowTable = reportTableFactory.getCashFlowTable();
+            ReportTable<Security> portfolioSecuritiesTable = reportTableFactory.getPortfolioSecuritiesTable();
+            ReportTable<SecurityTransaction> securityTransactionTable = reportTableFactory.getSecurityTransactionTable();
+            ReportTable<SecurityEventCashFlow> couponAndAmortizationTable = reportTableFactory.getCouponAmortizationRedemptionTable();
+            ReportTable<SecurityEventCashFlow> dividendTable = reportTableFactory.getDividendTable();
+            ReportTable<DerivativeTransaction> derivativeTransactionTable = reportTableFactory.getDerivativeTransactionTable();
+            ReportTable<SecurityEventCashFlow> derivativeCashFlowTable = reportTableFactory.getDerivativeCashFlowTable();
+            ReportTable<ForeignExchangeTransaction> fxTransactionTable = reportTableFactory.getForeignExchangeTransactionTable();
+
+            storage.addPortfolioProperties(portfolioPropertyTable.getData());
+            storage.addCashInfo(portfolioCashTable);
+            storage.addSecurities(portfolioSecuritiesTable.getData());
+            storage.addSecurityIsins(Stream.of( // required for amortization, derivatives and currency transactions
+                    couponAndAmortizationTable.getData().stream().map(SecurityEventCashFlow::getIsin),
+                    derivativeTransactionTable.getData().stream().map(DerivativeTransaction::getContract),
+                    derivativeCashFlowTable.getData().stream().map(SecurityEventCashFlow::getIsin),
+                    fxTransactionTable.getData().stream().map(ForeignExchangeTransaction::getInstrument))
+                    .flatMap(Function.identity())
+                    .collect(Collectors.toList()));
+            storage.addEventCashFlows(cashFlowTable.getData());
+
+            storage.addTransactions(Stream.of(
+                    securityTransactionTable.getData().stream().map(SecurityTransaction::getTransaction),
+                    derivativeTransactionTable.getData().stream().map(DerivativeTransaction::getTransaction),
+                    fxTransactionTable.getData().stream().map(ForeignExchangeTransaction::getTransaction))
+                    .flatMap(Function.identity())
+                    .collect(Collectors.toList()));
+            storage.addTransactionCashFlows(Stream.of(
+                    securityTransactionTable.getData().stream().map(SecurityTransaction::getTransactionCashFlows),
+                    derivativeTransactionTable.getData().stream().map(DerivativeTransaction::getTransactionCashFlows),
+                    fxTransactionTable.getData().stream().map(ForeignExchangeTransaction::getTransactionCashFlows))
+                    .flatMap(Function.identity())
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toList()));
 
-                portfolioPropertyTable.getData().forEach(storage::addPortfolioProperty);
-                storage.addCashInfo(portfolioCashTable);
-                portfolioSecuritiesTable.getData().forEach(storage::addSecurity);
-                cashFlowTable.getData().forEach(storage::addEventCashFlow);
-                securityTransactionTable.getData().forEach(storage::addTransaction);
-                couponAndAmortizationTable.getData().forEach(c -> {
-                    if (storage.addSecurity(c.getIsin())) { // required for amortization
-                        storage.addSecurityEventCashFlow(c);
-                    }
-                });
-                dividendTable.getData().forEach(storage::addSecurityEventCashFlow);
-                derivativeTransactionTable.getData().forEach(storage::addTransaction);
-                derivativeCashFlowTable.getData().forEach(c -> {
-                    if (storage.addSecurity(c.getIsin())) {
-                        if (c.getCount() == null &&
-                                c.getEventType() == CashFlowType.DERIVATIVE_PROFIT) { // count is optional for derivatives
-                            c = c.toBuilder().count(0).build();
-                        }
-                        storage.addSecurityEventCashFlow(c);
-                    }
-                });
-                fxTransactionTable.getData().forEach(storage::addTransaction);
-            }
+            storage.addSecurityEventCashFlows(couponAndAmortizationTable.getData());
+            storage.addSecurityEventCashFlows(dividendTable.getData());
+            storage.addSecurityEventCashFlows(derivativeCashFlowTable.getData()
+                    .stream()
+                    .map(c -> (c.getCount() == null && c.getEventType() == CashFlowType.DERIVATIVE_PROFIT) ?
+                            c.toBuilder().count(0).build() : // count is optional for derivatives
+                            c)
+                    .collect(Collectors.toList()));
         } catch (Exception e) {
             log.warn("Не могу распарсить отчет {}", reportTableFactory.getReport().getPath(), e);
             throw new RuntimeException(e);
@@ -22,134 +22,375 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.NestedExceptionUtils;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
-import ru.portfolio.portfolio.controller.*;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.portfolio.portfolio.pojo.*;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Stores report tables by JDBC batches. Rows existing in DB are filtered out before insert,
+ * rows concurrently inserted by other threads are skipped (MariaDB/MySQL) or merged (H2).
+ * Within transaction failed batch or row is rolled back to savepoint, so other rows of the report are kept.
+ * Stored transactions, security events and portfolio properties are announced by application events
+ * for caches invalidation.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class ReportTableStorage {
-    private final PortfolioRestController portfolioRestController;
-    private final SecurityRestController securityRestController;
-    private final SecurityEventCashFlowRestController securityEventCashFlowRestController;
-    private final EventCashFlowRestController eventCashFlowRestController;
-    private final TransactionRestController transactionRestController;
-    private final TransactionCashFlowRestController transactionCashFlowRestController;
-    private final PortfolioPropertyRestController portfolioPropertyRestController;
+    private static final int BATCH_SIZE = 100;
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    // progress of report file stored by current thread
+    private final ThreadLocal<ReportImportFile> importFile = new ThreadLocal<>();
+    private volatile Boolean isH2;
 
-    public boolean addPortfolio(Portfolio portfolio) {
-        return handlePost(
-                () -> portfolioRestController.post(portfolio),
-                "Не могу сохранить Портфель " + portfolio);
+    /**
+     * Stored rows and skipped duplicates will be counted in import file progress until {@link #removeImportFile()} call
+     */
+    public void setImportFile(ReportImportFile file) {
+        importFile.set(file);
     }
 
-    public boolean addSecurity(String isin) {
-        return addSecurity(isin, null);
+    public void removeImportFile() {
+        importFile.remove();
     }
 
-    public boolean addSecurity(String isin, String name) {
-        return addSecurity(Security.builder()
-                .isin(isin)
-                .name(name)
-                .build());
+    public void addPortfolio(Portfolio portfolio) {
+        batchInsert("portfolio", new String[]{"id"}, new String[]{"id"},
+                Collections.singletonList(portfolio),
+                p -> new Object[]{p.getId()},
+                "Не могу сохранить Портфель ");
     }
 
-    public boolean addSecurity(Security security) {
-        return handlePost(
-                () -> securityRestController.post(security),
-                "Не могу добавить ЦБ " + security + " в список");
+    public void addSecurities(Collection<Security> securities) {
+        batchInsert("security", new String[]{"isin", "ticker", "name", "issuer_inn"}, new String[]{"isin"},
+                securities,
+                s -> new Object[]{s.getIsin(), s.getTicker(), s.getName(), s.getInn()},
+                "Не могу добавить ЦБ в список ");
     }
 
-    public void addTransaction(SecurityTransaction securityTransaction) {
-        boolean isAdded = addTransaction(securityTransaction.getTransaction());
-        if (isAdded) {
-            securityTransaction.getTransactionCashFlows().forEach(this::addTransactionCashFlow);
-        }
+    /**
+     * Adds securities without overwriting names of existing ones
+     */
+    public void addSecurityIsins(Collection<String> isins) {
+        batchInsert("security", new String[]{"isin"}, new String[]{"isin"},
+                isins.stream().distinct().collect(Collectors.toList()),
+                isin -> new Object[]{isin},
+                "Не могу добавить ЦБ в список ");
     }
 
-    public void addTransaction(DerivativeTransaction derivativeTransaction) {
-        addSecurity(derivativeTransaction.getContract());
-        boolean isAdded = addTransaction(derivativeTransaction.getTransaction());
-        if (isAdded) {
-            derivativeTransaction.getTransactionCashFlows().forEach(this::addTransactionCashFlow);
+    public void addTransactions(Collection<Transaction> transactions) {
+        batchInsert("transaction", new String[]{"id", "portfolio", "isin", "timestamp", "count"},
+                new String[]{"id", "portfolio"},
+                transactions,
+                t -> new Object[]{t.getId(), t.getPortfolio(), t.getIsin(), toTimestamp(t.getTimestamp()), t.getCount()},
+                "Не могу добавить транзакцию ");
+        if (!transactions.isEmpty()) {
+            eventPublisher.publishEvent(new TransactionsStoredEvent(transactions));
         }
     }
 
-    public void addTransaction(ForeignExchangeTransaction fxTransaction) {
-        addSecurity(fxTransaction.getInstrument());
-        boolean isAdded = addTransaction(fxTransaction.getTransaction());
-        if (isAdded) {
-            fxTransaction.getTransactionCashFlows().forEach(this::addTransactionCashFlow);
-        }
+    public void addTransactionCashFlows(Collection<TransactionCashFlow> transactionCashFlows) {
+        batchInsert("transaction_cash_flow", new String[]{"transaction_id", "portfolio", "type", "value", "currency"},
+                new String[]{"transaction_id", "portfolio", "type"},
+                transactionCashFlows,
+                c -> new Object[]{c.getTransactionId(), c.getPortfolio(), c.getEventType().getId(), c.getValue(),
+                        c.getCurrency()},
+                "Не могу добавить информацию о передвижении средств ");
     }
 
-    protected boolean addTransaction(Transaction transaction) {
-        return handlePost(
-                () -> transactionRestController.post(transaction),
-                "Не могу добавить транзакцию " + transaction);
+    public void addEventCashFlows(Collection<EventCashFlow> eventCashFlows) {
+        batchInsert("event_cash_flow", new String[]{"portfolio", "timestamp", "type", "value", "currency", "description"},
+                new String[]{"timestamp", "type", "value", "currency", "portfolio"},
+                eventCashFlows,
+                c -> new Object[]{c.getPortfolio(), toTimestamp(c.getTimestamp()), c.getEventType().getId(), c.getValue(),
+                        c.getCurrency(), c.getDescription()},
+                "Не могу добавить информацию о движении денежных средств ");
     }
 
-    public void addTransactionCashFlow(TransactionCashFlow transactionCashFlow) {
-        handlePost(
-                () -> transactionCashFlowRestController.post(transactionCashFlow),
-                "Не могу добавить информацию о передвижении средств " + transactionCashFlow);
-    }
-
-    public void addEventCashFlow(EventCashFlow eventCashFlow) {
-        handlePost(
-                () -> eventCashFlowRestController.post(eventCashFlow),
-                "Не могу добавить информацию о движении денежных средств " + eventCashFlow);
-    }
-
-    public void addSecurityEventCashFlow(SecurityEventCashFlow securityEventCashFlow) {
-        handlePost(
-                () -> securityEventCashFlowRestController.post(securityEventCashFlow),
-                "Не могу добавить информацию о движении денежных средств " + securityEventCashFlow);
+    public void addSecurityEventCashFlows(Collection<SecurityEventCashFlow> securityEventCashFlows) {
+        batchInsert("security_event_cash_flow",
+                new String[]{"portfolio", "timestamp", "isin", "count", "type", "value", "currency"},
+                new String[]{"timestamp", "isin", "type", "portfolio"},
+                securityEventCashFlows,
+                c -> new Object[]{c.getPortfolio(), toTimestamp(c.getTimestamp()), c.getIsin(), c.getCount(),
+                        c.getEventType().getId(), c.getValue(), c.getCurrency()},
+                "Не могу добавить информацию о движении денежных средств ");
+        if (!securityEventCashFlows.isEmpty()) {
+            eventPublisher.publishEvent(new SecurityEventCashFlowsStoredEvent(securityEventCashFlows));
+        }
     }
 
-    public void addPortfolioProperty(PortfolioProperty property) {
-        handlePost(
-                () -> portfolioPropertyRestController.post(property),
-                "Не могу добавить информацию о свойствах портфеля " + property);
+    public void addPortfolioProperties(Collection<PortfolioProperty> properties) {
+        // args are built several times per row, property without timestamp should get the same key each time
+        Timestamp now = toTimestamp(Instant.now());
+        batchInsert("portfolio_property", new String[]{"portfolio", "timestamp", "property", "value"},
+                new String[]{"timestamp", "portfolio", "property"},
+                properties,
+                p -> new Object[]{p.getPortfolio(),
+                        (p.getTimestamp() != null) ? toTimestamp(p.getTimestamp()) : now,
+                        p.getProperty().name(), p.getValue()},
+                "Не могу добавить информацию о свойствах портфеля ");
+        if (!properties.isEmpty()) {
+            eventPublisher.publishEvent(new PortfolioPropertiesStoredEvent(properties));
+        }
     }
 
     public void addCashInfo(ReportTable<PortfolioCash> cashTable) {
         try {
             if (!cashTable.getData().isEmpty()) {
-                addPortfolioProperty(PortfolioProperty.builder()
+                addPortfolioProperties(Collections.singletonList(PortfolioProperty.builder()
                         .portfolio(cashTable.getReport().getPortfolio())
                         .property(PortfolioPropertyType.CASH)
                         .value(objectMapper.writeValueAsString(cashTable.getData()))
                         .timestamp(cashTable.getReport().getReportDate())
-                        .build());
+                        .build()));
             }
         } catch (JsonProcessingException e) {
             log.warn("Не могу добавить информацию о наличных средствах {}", cashTable.getData(), e);
         }
     }
 
-    private boolean handlePost(Supplier<ResponseEntity<?>> postAction, String error) {
-        try {
-            HttpStatus status = postAction.get().getStatusCode();
-            if (!status.is2xxSuccessful() && status != HttpStatus.CONFLICT) {
-                log.warn(error);
-                return false;
+    /**
+     * Inserts rows by batches. Rows with natural keys already existing in DB are skipped before insert.
+     * If batch failed, rows of the batch are inserted one by one, failed rows are skipped.
+     *
+     * @param keyColumns natural key, rows existence is checked in first key column values range
+     */
+    private <T> void batchInsert(String table, String[] columns, String[] keyColumns, Collection<T> rows,
+                                 Function<T, Object[]> toArgs, String error) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = getInsertSql(table, columns, keyColumns);
+        int[] keyIndices = Arrays.stream(keyColumns)
+                .mapToInt(key -> Arrays.asList(columns).indexOf(key))
+                .toArray();
+        Set<List<Object>> keys = getExistingKeys(table, columns, keyColumns, keyIndices, rows, toArgs);
+        List<T> batch = new ArrayList<>(Math.min(BATCH_SIZE, rows.size()));
+        for (T row : rows) {
+            if (!keys.add(getKey(toArgs.apply(row), keyIndices))) {
+                countDuplicate();
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                executeBatch(sql, batch, toArgs, error);
+                batch.clear();
             }
+        }
+        if (!batch.isEmpty()) {
+            executeBatch(sql, batch, toArgs, error);
+        }
+    }
+
+    /**
+     * Loads natural keys of the table by one query. Query is limited by first key column values range and
+     * portfolio, if all rows are for the same portfolio.
+     */
+    private <T> Set<List<Object>> getExistingKeys(String table, String[] columns, String[] keyColumns,
+                                                  int[] keyIndices, Collection<T> rows,
+                                                  Function<T, Object[]> toArgs) {
+        int rangeIndex = keyIndices[0];
+        Comparable<Object> min = null;
+        Comparable<Object> max = null;
+        Set<Object> portfolios = new HashSet<>();
+        int portfolioIndex = Arrays.asList(columns).indexOf("portfolio");
+        for (T row : rows) {
+            Object[] args = toArgs.apply(row);
+            @SuppressWarnings("unchecked")
+            Comparable<Object> value = (Comparable<Object>) args[rangeIndex];
+            if (value != null) {
+                min = (min == null || value.compareTo(min) < 0) ? value : min;
+                max = (max == null || value.compareTo(max) > 0) ? value : max;
+            }
+            if (portfolioIndex != -1) {
+                portfolios.add(args[portfolioIndex]);
+            }
+        }
+        if (min == null) {
+            return new HashSet<>();
+        }
+        String sql = "SELECT " + Arrays.stream(keyColumns).map(ReportTableStorage::quote).collect(joining(", ")) +
+                " FROM " + quote(table) +
+                " WHERE " + quote(keyColumns[0]) + " BETWEEN ? AND ?";
+        List<Object> args = new ArrayList<>(Arrays.asList(min, max));
+        if (portfolios.size() == 1) {
+            sql += " AND `portfolio` = ?";
+            args.add(portfolios.iterator().next());
+        }
+        Set<List<Object>> keys = new HashSet<>();
+        jdbcTemplate.query(sql, args.toArray(), rs -> {
+            List<Object> key = new ArrayList<>(keyColumns.length);
+            for (int i = 1; i <= keyColumns.length; i++) {
+                key.add(normalize(rs.getObject(i)));
+            }
+            keys.add(key);
+        });
+        return keys;
+    }
+
+    private static List<Object> getKey(Object[] args, int[] keyIndices) {
+        List<Object> key = new ArrayList<>(keyIndices.length);
+        for (int i : keyIndices) {
+            key.add(normalize(args[i]));
+        }
+        return key;
+    }
+
+    /**
+     * Makes values got from JDBC driver and values of row comparable
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant();
+        }
+        return value;
+    }
+
+    private <T> void executeBatch(String sql, List<T> batch, Function<T, Object[]> toArgs, String error) {
+        int[] results;
+        try {
+            results = executeInSavepoint(() -> jdbcTemplate.batchUpdate(sql, batch.stream()
+                    .map(toArgs)
+                    .collect(Collectors.toList())));
+        } catch (DataAccessException e) {
+            log.debug("Пакетная вставка не выполнена, вставляю записи по одной", e);
+            batch.forEach(row -> executeUpdate(sql, row, toArgs, error));
+            return;
+        }
+        for (int result : results) {
+            countResult(result);
+        }
+    }
+
+    private <T> void executeUpdate(String sql, T row, Function<T, Object[]> toArgs, String error) {
+        try {
+            countResult(executeInSavepoint(() -> jdbcTemplate.update(sql, toArgs.apply(row))));
         } catch (Exception e) {
-            if (NestedExceptionUtils.getMostSpecificCause(e).getMessage().toLowerCase().contains("duplicate")) {
-                log.debug("Дублирование информации: {}", error, e);
+            if (e instanceof DuplicateKeyException) {
+                log.debug("Дублирование информации: {}", error + row, e);
+                countDuplicate();
             } else {
-                log.warn(error);
+                log.warn(error + row, e);
+                countFailed();
             }
-            return false;
         }
-        return true;
+    }
+
+    /**
+     * Partially executed batch or failed statement is rolled back to savepoint, if called within transaction
+     */
+    private <R> R executeInSavepoint(Supplier<R> action) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        R result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+                connection.rollback(savepoint);
+                return null;
+            });
+            throw e;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+        return result;
+    }
+
+    private String getInsertSql(String table, String[] columns, String[] keyColumns) {
+        String values = Collections.nCopies(columns.length, "?")
+                .stream()
+                .collect(joining(", ", "(", ")"));
+        if (isH2()) {
+            return "MERGE INTO " + quote(table) + " " + quote(columns) + " KEY " + quote(keyColumns) + " VALUES " + values;
+        } else {
+            // unlike INSERT IGNORE skips duplicate key only, foreign key and not null violations fail the row
+            String key = quote(keyColumns[0]);
+            return "INSERT INTO " + quote(table) + " " + quote(columns) + " VALUES " + values +
+                    " ON DUPLICATE KEY UPDATE " + key + " = " + key;
+        }
+    }
+
+    private boolean isH2() {
+        if (isH2 == null) {
+            isH2 = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("h2"));
+        }
+        return isH2;
+    }
+
+    private static String quote(String[] columns) {
+        return Arrays.stream(columns)
+                .map(ReportTableStorage::quote)
+                .collect(joining(", ", "(", ")"));
+    }
+
+    private static String quote(String name) {
+        return "`" + name + "`";
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return (instant == null) ? null : Timestamp.from(instant);
+    }
+
+    /**
+     * MySQL driver reports found rows, concurrently inserted duplicate is counted as stored row
+     */
+    private void countResult(int result) {
+        if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+            countStored();
+        } else {
+            countDuplicate();
+        }
+    }
+
+    private void countStored() {
+        ReportImportFile file = importFile.get();
+        if (file != null) {
+            file.getStoredRowsCounter().incrementAndGet();
+        }
+    }
+
+    private void countFailed() {
+        ReportImportFile file = importFile.get();
+        if (file != null) {
+            file.getFailedRowsCounter().incrementAndGet();
+        }
+    }
+
+    private void countDuplicate() {
+        ReportImportFile file = importFile.get();
+        if (file != null) {
+            file.getDuplicatesCounter().incrementAndGet();
+        }
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.util.CellAddress;
+
+/**
+ * Read-only cell value of {@link ReportPage}. Mimics behaviour of Apache POI cell getters.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class TableCell {
+    private final int rowIndex;
+    private final int columnIndex;
+    private final CellType cellType;
+    /**
+     * String, Double or Boolean value (or cached formula result), null for blank or error cell
+     */
+    private final Object value;
+
+    TableCell(int rowIndex, int columnIndex, CellType cellType, Object value) {
+        this.rowIndex = rowIndex;
+        this.columnIndex = columnIndex;
+        this.cellType = cellType;
+        this.value = value;
+    }
+
+    public CellAddress getAddress() {
+        return new CellAddress(rowIndex, columnIndex);
+    }
+
+    public String getStringCellValue() {
+        if (cellType == CellType.BLANK) {
+            return "";
+        } else if (value instanceof String) {
+            return (String) value;
+        }
+        throw new IllegalStateException("Ячейка " + getAddress() + " не содержит строку, тип ячейки " + cellType);
+    }
+
+    public double getNumericCellValue() {
+        if (cellType == CellType.BLANK) {
+            return 0;
+        } else if (value instanceof Double) {
+            return (Double) value;
+        }
+        throw new IllegalStateException("Ячейка " + getAddress() + " не содержит число, тип ячейки " + cellType);
+    }
+
+    public boolean getBooleanCellValue() {
+        if (cellType == CellType.BLANK) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw new IllegalStateException("Ячейка " + getAddress() + " не содержит логическое значение, тип ячейки " + cellType);
+    }
+}
@@ -18,7 +18,6 @@
 
 package ru.portfolio.portfolio.parser;
 
-import org.apache.poi.ss.usermodel.Row;
 
 public interface TableColumn {
     TableColumn NOCOLUMN = (i, j) -> -1;
@@ -31,7 +30,7 @@ public interface TableColumn {
      * @param headerRows header rows
      * @return column index of table
      */
-    default int getColumnIndex(Row... headerRows) {
+    default int getColumnIndex(ReportPageRow... headerRows) {
         return getColumnIndex(0, headerRows);
     }
 
@@ -40,5 +39,5 @@ public interface TableColumn {
      * @param headerRows header rows
      * @return column index of table
      */
-    int getColumnIndex(int firstColumnForSearch, Row... headerRows);
+    int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows);
 }
@@ -20,16 +20,16 @@ package ru.portfolio.portfolio.parser;
 
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
 
 import java.util.Arrays;
+import java.util.regex.Pattern;
 
-@ToString
-@EqualsAndHashCode
+@ToString(of = "words")
+@EqualsAndHashCode(of = "words")
 public class TableColumnImpl implements TableColumn {
     private final String[] words;
+    private final Pattern[] patterns;
 
     public static TableColumn of(String... words) {
         return new TableColumnImpl(words);
@@ -39,18 +39,21 @@ public class TableColumnImpl implements TableColumn {
         this.words = Arrays.stream(words)
                 .map(String::toLowerCase)
                 .toArray(String[]::new);
+        this.patterns = Arrays.stream(this.words)
+                .map(word -> Pattern.compile("(^|.*\\b|.*\\s)" + word + "(\\b.*|\\s.*|$)"))
+                .toArray(Pattern[]::new);
     }
 
-    public int getColumnIndex(int firstColumnForSearch, Row... headerRows) {
-        for (Row header : headerRows) {
+    public int getColumnIndex(int firstColumnForSearch, ReportPageRow... headerRows) {
+        for (ReportPageRow header : headerRows) {
             next_cell:
-            for (Cell cell : header) {
+            for (TableCell cell : header) {
                 if (cell != null && cell.getColumnIndex() >= firstColumnForSearch && cell.getCellType() == CellType.STRING) {
                     String colName = cell.getStringCellValue();
                     if (colName != null) {
                         colName = colName.toLowerCase();
-                        for (String word : words) {
-                            if (!containsWord(colName, word)) {
+                        for (Pattern pattern : patterns) {
+                            if (!pattern.matcher(colName).matches()) {
                                 continue next_cell;
                             }
                         }
@@ -61,8 +64,4 @@ public class TableColumnImpl implements TableColumn {
         }
         throw new RuntimeException("Не обнаружен заголовок таблицы, включающий слова: " + String.join(", ", words));
     }
-
-    private boolean containsWord(String text, String word) {
-        return text.matches("(^|.*\\b|.*\\s)" + word + "(\\b.*|\\s.*|$)");
-    }
 }
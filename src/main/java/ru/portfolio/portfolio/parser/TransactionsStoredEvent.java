@@ -0,0 +1,34 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.parser;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.portfolio.portfolio.pojo.Transaction;
+
+import java.util.Collection;
+
+/**
+ * Published by {@link ReportTableStorage} after transactions insert
+ */
+@Getter
+@RequiredArgsConstructor
+public class TransactionsStoredEvent {
+    private final Collection<Transaction> transactions;
+}
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.EventCashFlow;
@@ -42,7 +41,7 @@ public class CashFlowTable extends AbstractReportTable<EventCashFlow> {
     }
 
     @Override
-    protected Collection<EventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<EventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         String action = table.getStringCellValue(row, OPERATION);
         action = String.valueOf(action).toLowerCase().trim();
         CashFlowType type = CashFlowType.CASH;
@@ -77,8 +76,8 @@ public class CashFlowTable extends AbstractReportTable<EventCashFlow> {
     }
 
     @Override
-    protected boolean checkEquality(EventCashFlow flow1, EventCashFlow flow2) {
-        return EventCashFlow.checkEquality(flow1, flow2);
+    protected Object getDuplicateKey(EventCashFlow flow) {
+        return EventCashFlow.getDuplicateKey(flow);
     }
 
     @Override
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
@@ -43,7 +42,7 @@ public class CouponAmortizationRedemptionTable extends AbstractReportTable<Secur
     }
 
     @Override
-    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         CashFlowType event;
         String action = table.getStringCellValue(row, TYPE);
         if (action.equalsIgnoreCase("Погашение купона")) {
@@ -21,7 +21,6 @@ package ru.portfolio.portfolio.parser.psb;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
@@ -61,7 +60,7 @@ public class DerivativeCashFlowTable extends AbstractReportTable<SecurityEventCa
         return !this.contractCount.isEmpty();
     }
 
-    private static AbstractMap.SimpleEntry<String, Integer> getCount(ExcelTable table, Row row) {
+    private static AbstractMap.SimpleEntry<String, Integer> getCount(ExcelTable table, ReportPageRow row) {
         String contract = table.getStringCellValue(row, CONTRACT);
         int incomingCount = Math.abs(table.getIntCellValue(row, INCOUMING));
         int outgoingCount = Math.abs(table.getIntCellValue(row, OUTGOING));
@@ -73,7 +72,7 @@ public class DerivativeCashFlowTable extends AbstractReportTable<SecurityEventCa
     }
 
     @Override
-    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         BigDecimal value = table.getCurrencyCellValue(row, DerivativeCashFlowTableHeader.INCOUMING)
                 .subtract(table.getCurrencyCellValue(row, DerivativeCashFlowTableHeader.OUTGOING));
         SecurityEventCashFlow.SecurityEventCashFlowBuilder builder = SecurityEventCashFlow.builder()
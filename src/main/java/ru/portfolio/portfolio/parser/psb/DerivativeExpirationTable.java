@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.math.BigDecimal;
@@ -41,7 +40,7 @@ class DerivativeExpirationTable extends AbstractReportTable<DerivativeTransactio
     }
 
     @Override
-    protected Collection<DerivativeTransaction> getRow(ExcelTable table, Row row) {
+    protected Collection<DerivativeTransaction> getRow(ExcelTable table, ReportPageRow row) {
         boolean isBuy = table.getStringCellValue(row, DIRECTION).equalsIgnoreCase("покупка");
         int count = table.getIntCellValue(row, COUNT);
         String type = table.getStringCellValue(row, TYPE).toLowerCase();
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.util.Collection;
@@ -42,7 +41,7 @@ public class PortfolioCashTable extends AbstractReportTable<PortfolioCash> {
     }
 
     @Override
-    protected Collection<PortfolioCash> getRow(ExcelTable table, Row row) {
+    protected Collection<PortfolioCash> getRow(ExcelTable table, ReportPageRow row) {
         return rowContains(table, row, INVALID_TEXT) ?
                 emptyList() :
                 singletonList(PortfolioCash.builder()
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.pojo.PortfolioProperty;
 import ru.portfolio.portfolio.pojo.PortfolioPropertyType;
@@ -64,7 +63,7 @@ public class PortfolioPropertyTable extends InitializableReportTable<PortfolioPr
 
     protected static Collection<PortfolioProperty> getTotalAssets(ExcelTable table, PsbBrokerReport report) {
         try {
-            Row row = table.findRow(ASSETS);
+            ReportPageRow row = table.findRow(ASSETS);
             if (row == null) {
                 return emptyList();
             }
@@ -82,7 +81,7 @@ public class PortfolioPropertyTable extends InitializableReportTable<PortfolioPr
 
     protected static Collection<PortfolioProperty> getExchangeRate(ExcelTable table, PsbBrokerReport report) {
         try {
-            Row row = table.findRow(EXCHANGE_RATE_ROW);
+            ReportPageRow row = table.findRow(EXCHANGE_RATE_ROW);
             if (row == null) {
                 return emptyList();
             }
@@ -99,7 +98,7 @@ public class PortfolioPropertyTable extends InitializableReportTable<PortfolioPr
     }
 
     private static Collection<PortfolioProperty> createExchangeRateProperty(PsbBrokerReport report, ExcelTable table,
-                                                                            Row row, SummaryTableHeader currency,
+                                                                            ReportPageRow row, SummaryTableHeader currency,
                                                                             PortfolioPropertyType property) {
         try {
             BigDecimal exchangeRate = table.getCurrencyCellValue(row, currency);
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.pojo.Security;
 
@@ -43,7 +42,7 @@ public class PortfolioSecuritiesTable extends AbstractReportTable<Security> {
     }
 
     @Override
-    protected Collection<Security> getRow(ExcelTable table, Row row) {
+    protected Collection<Security> getRow(ExcelTable table, ReportPageRow row) {
         return rowContains(table, row, INVALID_TEXT) ?
                 emptyList() :
                 Collections.singletonList(Security.builder()
@@ -20,19 +20,16 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import ru.portfolio.portfolio.parser.BrokerReport;
 import ru.portfolio.portfolio.parser.ExcelTableHelper;
+import ru.portfolio.portfolio.parser.ReportPage;
+import ru.portfolio.portfolio.parser.ReportPageReader;
+import ru.portfolio.portfolio.parser.TableCell;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
@@ -49,9 +46,8 @@ public class PsbBrokerReport implements BrokerReport {
     private static final String PORTFOLIO_MARKER = "Договор №:";
     private static final String REPORT_DATE_MARKER = "ОТЧЕТ БРОКЕРА";
 
-    private final Workbook book;
     @Getter
-    private final Sheet sheet;
+    private final ReportPage sheet;
     @Getter
     private final String portfolio;
     @Getter
@@ -64,29 +60,24 @@ public class PsbBrokerReport implements BrokerReport {
     }
 
     public PsbBrokerReport(Path report) throws IOException {
-        this(report.getFileName().toString(), Files.newInputStream(report));
+        this(report.getFileName(), ReportPageReader.read(report));
     }
 
     public PsbBrokerReport(String exelFileName, InputStream is) throws IOException {
-        this.path = Paths.get(exelFileName);
-        this.book = getWorkBook(exelFileName, is);
-        this.sheet = book.getSheetAt(0);
-        this.portfolio = getPortfolio(this.sheet);
-        this.reportDate = getReportDate(this.sheet);
+        this(Paths.get(exelFileName), ReportPageReader.read(exelFileName, is));
     }
 
-    private Workbook getWorkBook(String exelFileName, InputStream is) throws IOException {
-        if (exelFileName.endsWith(".xls")) {
-            return new HSSFWorkbook(is); // constructor close zis
-        } else {
-            return new XSSFWorkbook(is);
-        }
+    private PsbBrokerReport(Path path, ReportPage sheet) {
+        this.path = path;
+        this.sheet = sheet;
+        this.portfolio = getPortfolio(this.sheet);
+        this.reportDate = getReportDate(this.sheet);
     }
 
-    private static String getPortfolio(Sheet sheet) {
+    private static String getPortfolio(ReportPage sheet) {
         try {
             CellAddress address = ExcelTableHelper.find(sheet, PORTFOLIO_MARKER);
-            for (Cell cell : sheet.getRow(address.getRow())) {
+            for (TableCell cell : sheet.getRow(address.getRow())) {
                 if (cell != null && cell.getColumnIndex() > address.getColumn() && cell.getCellType() == CellType.STRING) {
                     String value = ExcelTableHelper.getStringCellValue(cell);
                     return value.contains("/") ? value.split("/")[0] : value;
@@ -99,13 +90,16 @@ public class PsbBrokerReport implements BrokerReport {
         }
     }
 
-    private Instant getReportDate(Sheet sheet) {
+    /**
+     * @param sheet whole report sheet or its header
+     */
+    public static Instant getReportDate(ReportPage sheet) {
         try {
 
             CellAddress address = ExcelTableHelper.find(sheet, REPORT_DATE_MARKER);
-            for (Cell cell : sheet.getRow(address.getRow())) {
+            for (TableCell cell : sheet.getRow(address.getRow())) {
                 if (cell != null && cell.getColumnIndex() > address.getColumn() && cell.getCellType() == CellType.STRING) {
-                    return convertToInstant(ExcelTableHelper.getStringCellValue(cell).split(" ")[3]);
+                    return toInstant(ExcelTableHelper.getStringCellValue(cell).split(" ")[3]);
                 }
             }
             throw new IllegalArgumentException(
@@ -116,6 +110,10 @@ public class PsbBrokerReport implements BrokerReport {
     }
 
     public Instant convertToInstant(String value) {
+        return toInstant(value);
+    }
+
+    private static Instant toInstant(String value) {
         if (value.contains(":")) {
             return LocalDateTime.parse(value, PsbBrokerReport.dateTimeFormatter).atZone(PsbBrokerReport.zoneId).toInstant();
         } else {
@@ -124,7 +122,6 @@ public class PsbBrokerReport implements BrokerReport {
     }
 
     @Override
-    public void close() throws IOException {
-        this.book.close();
+    public void close() {
     }
 }
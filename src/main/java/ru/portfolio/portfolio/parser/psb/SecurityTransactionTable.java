@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.psb;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.math.BigDecimal;
@@ -55,7 +54,7 @@ public class SecurityTransactionTable extends InitializableReportTable<SecurityT
         return table.getDataCollection(report.getPath(), this::getTransaction);
     }
 
-    private Collection<SecurityTransaction> getTransaction(ExcelTable table, Row row) {
+    private Collection<SecurityTransaction> getTransaction(ExcelTable table, ReportPageRow row) {
         boolean isBuy = table.getStringCellValue(row, DIRECTION).equalsIgnoreCase("покупка");
         BigDecimal value = table.getCurrencyCellValue(row, VALUE);
         BigDecimal accruedInterest = table.getCurrencyCellValue(row, ACCRUED_INTEREST);
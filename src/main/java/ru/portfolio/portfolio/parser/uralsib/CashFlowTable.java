@@ -19,9 +19,9 @@
 package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.AbstractReportTable;
 import ru.portfolio.portfolio.parser.ExcelTable;
+import ru.portfolio.portfolio.parser.ReportPageRow;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.EventCashFlow;
 
@@ -45,7 +45,7 @@ public class CashFlowTable extends AbstractReportTable<EventCashFlow> {
     }
 
     @Override
-    protected Collection<EventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<EventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         String action = table.getStringCellValue(row, OPERATION);
         action = String.valueOf(action).toLowerCase().trim();
         String description = table.getStringCellValue(row, DESCRIPTION);
@@ -111,8 +111,8 @@ public class CashFlowTable extends AbstractReportTable<EventCashFlow> {
     }
 
     @Override
-    protected boolean checkEquality(EventCashFlow flow1, EventCashFlow flow2) {
-        return EventCashFlow.checkEquality(flow1, flow2);
+    protected Object getDuplicateKey(EventCashFlow flow) {
+        return EventCashFlow.getDuplicateKey(flow);
     }
 
     @Override
@@ -19,8 +19,8 @@
 package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.ExcelTable;
+import ru.portfolio.portfolio.parser.ReportPageRow;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.Security;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
@@ -30,7 +30,6 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 
 import static java.util.Collections.emptyList;
@@ -40,16 +39,16 @@ import static ru.portfolio.portfolio.parser.uralsib.PaymentsTable.PaymentsTableH
 public class CouponAmortizationRedemptionTable extends PaymentsTable<SecurityEventCashFlow> {
 
     private static final BigDecimal minValue = BigDecimal.valueOf(0.01);
-    private final List<Map.Entry<String, Instant>> redemptionDates;
+    private final SecurityRedemptionTable securityRedemptionTable;
 
     public CouponAmortizationRedemptionTable(UralsibBrokerReport report,
                                              PortfolioSecuritiesTable securitiesTable,
                                              SecurityTransactionTable securityTransactionTable) {
         super(report, securitiesTable, securityTransactionTable);
-        this.redemptionDates = new SecurityRedemptionTable(report).getData();
+        this.securityRedemptionTable = new SecurityRedemptionTable(report);
     }
 
-    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         CashFlowType event;
         String action = table.getStringCellValue(row, OPERATION);
         action = String.valueOf(action).toLowerCase().trim();
@@ -92,7 +91,7 @@ public class CouponAmortizationRedemptionTable extends PaymentsTable<SecurityEve
     }
 
     private boolean isRedemption(String securityName, Instant amortizationDay) {
-        LocalDate redemptionDate = redemptionDates.stream()
+        LocalDate redemptionDate = securityRedemptionTable.getData().stream()
                 .filter(e -> securityName.equalsIgnoreCase(e.getKey()))
                 .map(Map.Entry::getValue)
                 .map(instant -> LocalDate.ofInstant(instant, UralsibBrokerReport.zoneId))
@@ -101,7 +100,7 @@ public class CouponAmortizationRedemptionTable extends PaymentsTable<SecurityEve
         return (redemptionDate != null) && redemptionDate.equals(LocalDate.ofInstant(amortizationDay, UralsibBrokerReport.zoneId));
     }
 
-    private BigDecimal getTax(ExcelTable table, Row row) {
+    private BigDecimal getTax(ExcelTable table, ReportPageRow row) {
         // информация о налоге по купонам облигаций не выводится в отчет брокера
         return BigDecimal.ZERO;
     }
@@ -19,9 +19,9 @@
 package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.AbstractReportTable;
 import ru.portfolio.portfolio.parser.ExcelTable;
+import ru.portfolio.portfolio.parser.ReportPageRow;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
 
@@ -42,7 +42,7 @@ public class DerivativeCashFlowTable extends AbstractReportTable<SecurityEventCa
         super(report, PaymentsTable.TABLE_NAME, "", PaymentsTable.PaymentsTableHeader.class);
     }
 
-    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         String action = table.getStringCellValue(row, OPERATION);
         action = String.valueOf(action).toLowerCase().trim();
         if (!action.equalsIgnoreCase("вариационная маржа")) {
@@ -58,7 +58,7 @@ public class DerivativeCashFlowTable extends AbstractReportTable<SecurityEventCa
                 .build());
     }
 
-    private String getContract(ExcelTable table, Row row) {
+    private String getContract(ExcelTable table, ReportPageRow row) {
         String description = table.getStringCellValue(row, DESCRIPTION);
         Matcher matcher = contractPattern.matcher(description);
         if (matcher.find()) {
@@ -68,8 +68,8 @@ public class DerivativeCashFlowTable extends AbstractReportTable<SecurityEventCa
     }
 
     @Override
-    protected boolean checkEquality(SecurityEventCashFlow cash1, SecurityEventCashFlow cash2) {
-        return SecurityEventCashFlow.checkEquality(cash1, cash2);
+    protected Object getDuplicateKey(SecurityEventCashFlow cash) {
+        return SecurityEventCashFlow.getDuplicateKey(cash);
     }
 
     @Override
@@ -21,7 +21,6 @@ package ru.portfolio.portfolio.parser.uralsib;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.math.BigDecimal;
@@ -42,7 +41,7 @@ public class DerivativeTransactionTable extends AbstractReportTable<DerivativeTr
     }
 
     @Override
-    protected Collection<DerivativeTransaction> getRow(ExcelTable table, Row row) {
+    protected Collection<DerivativeTransaction> getRow(ExcelTable table, ReportPageRow row) {
         Long transactionId = SecurityTransactionTable.getTransactionId(table, row, TRANSACTION);
         if (transactionId == null) return emptyList();
 
@@ -19,8 +19,8 @@
 package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.ExcelTable;
+import ru.portfolio.portfolio.parser.ReportPageRow;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.Security;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
@@ -50,7 +50,7 @@ public class DividendTable extends PaymentsTable<SecurityEventCashFlow> {
     }
 
     @Override
-    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, Row row) {
+    protected Collection<SecurityEventCashFlow> getRow(ExcelTable table, ReportPageRow row) {
         String action = table.getStringCellValue(row, OPERATION);
         action = String.valueOf(action).toLowerCase().trim();
         String description = table.getStringCellValue(row, DESCRIPTION);
@@ -85,7 +85,7 @@ public class DividendTable extends PaymentsTable<SecurityEventCashFlow> {
         return data;
     }
 
-    private BigDecimal getTax(ExcelTable table, Row row) {
+    private BigDecimal getTax(ExcelTable table, ReportPageRow row) {
         String description = table.getStringCellValue(row, DESCRIPTION);
         Matcher matcher = taxInformationPattern.matcher(description.toLowerCase());
         if (matcher.find()) {
@@ -21,7 +21,6 @@ package ru.portfolio.portfolio.parser.uralsib;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.math.BigDecimal;
@@ -42,7 +41,7 @@ public class ForeignExchangeTransactionTable extends AbstractReportTable<Foreign
     }
 
     @Override
-    protected Collection<ForeignExchangeTransaction> getRow(ExcelTable table, Row row) {
+    protected Collection<ForeignExchangeTransaction> getRow(ExcelTable table, ReportPageRow row) {
         long transactionId;
         if (table.getCell(row, TRANSACTION).getCellType() == CellType.STRING) {
             String value = table.getStringCellValue(row, TRANSACTION);
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.parser.uralsib.PortfolioSecuritiesTable.ReportSecurityInformation;
 import ru.portfolio.portfolio.pojo.CashFlowType;
@@ -28,10 +27,7 @@ import ru.portfolio.portfolio.pojo.EventCashFlow;
 import ru.portfolio.portfolio.pojo.Security;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import static ru.portfolio.portfolio.parser.uralsib.PaymentsTable.PaymentsTableHeader.*;
@@ -41,23 +37,23 @@ import static ru.portfolio.portfolio.parser.uralsib.UralsibBrokerReport.convertT
 abstract class PaymentsTable<RowType> extends AbstractReportTable<RowType> {
 
     static final String TABLE_NAME = "ДВИЖЕНИЕ ДЕНЕЖНЫХ СРЕДСТВ ЗА ОТЧЕТНЫЙ ПЕРИОД";
-    // human readable name -> incoming count
-    private final List<ReportSecurityInformation> securitiesIncomingCount;
-    private final List<SecurityTransaction> securityTransactions;
-    private final Collection<EventCashFlow> eventCashFlows = new ArrayList<>();
+    // dependent tables are parsed on first access, possibly concurrently with this table
+    private final PortfolioSecuritiesTable securitiesTable;
+    private final SecurityTransactionTable securityTransactionTable;
+    private final Map<Object, Collection<EventCashFlow>> eventCashFlows = new LinkedHashMap<>();
 
     public PaymentsTable(UralsibBrokerReport report,
                          PortfolioSecuritiesTable securitiesTable,
                          SecurityTransactionTable securityTransactionTable) {
         super(report, TABLE_NAME, "", PaymentsTableHeader.class);
-        this.securitiesIncomingCount = securitiesTable.getData();
-        this.securityTransactions = securityTransactionTable.getData();
+        this.securitiesTable = securitiesTable;
+        this.securityTransactionTable = securityTransactionTable;
     }
 
     /**
      * @return security if found, null otherwise
      */
-    protected Security getSecurity(ExcelTable table, Row row, CashFlowType cashEventIfSecurityNotFound) {
+    protected Security getSecurity(ExcelTable table, ReportPageRow row, CashFlowType cashEventIfSecurityNotFound) {
         try {
             return getSecurityIfCan(table, row);
         } catch (Exception e) {
@@ -69,17 +65,17 @@ abstract class PaymentsTable<RowType> extends AbstractReportTable<RowType> {
                     .currency(convertToCurrency(table.getStringCellValue(row, CURRENCY)))
                     .description(table.getStringCellValue(row, DESCRIPTION))
                     .build();
-            ExcelTable.addWithEqualityChecker(cash, eventCashFlows,
-                    EventCashFlow::checkEquality, EventCashFlow::mergeDuplicates);
+            ExcelTable.addWithKey(cash, eventCashFlows,
+                    EventCashFlow::getDuplicateKey, EventCashFlow::mergeDuplicates);
             log.debug("Получена выплата по ценной бумаге, которой нет в портфеле: " + cash);
             return null;
         }
     }
 
-    protected Security getSecurityIfCan(ExcelTable table, Row row) {
+    protected Security getSecurityIfCan(ExcelTable table, ReportPageRow row) {
         String description = table.getStringCellValue(row, DESCRIPTION);
         String descriptionLowercase = description.toLowerCase();
-        for (ReportSecurityInformation info : securitiesIncomingCount) {
+        for (ReportSecurityInformation info : securitiesTable.getData()) {
             if (info == null) continue;
             Security security = info.getSecurity();
             if (contains(descriptionLowercase, info.getCfi()) ||   // dividend
@@ -96,12 +92,12 @@ abstract class PaymentsTable<RowType> extends AbstractReportTable<RowType> {
     }
 
     protected Integer getSecurityCount(Security security, Instant atInstant) {
-        int count = securitiesIncomingCount.stream()
+        int count = securitiesTable.getData().stream()
                 .filter(i -> i.getSecurity().getIsin().equals(security.getIsin()))
                 .map(ReportSecurityInformation::getIncomingCount)
                 .findAny()
                 .orElseThrow(() -> new RuntimeException("Не найдено количество на начало периода отчета для ЦБ " + security));
-        Collection<SecurityTransaction> transactions = securityTransactions.stream()
+        Collection<SecurityTransaction> transactions = securityTransactionTable.getData().stream()
                 .filter(t -> t.getIsin().equals(security.getIsin()))
                 .sorted(Comparator.comparing(SecurityTransaction::getTimestamp))
                 .collect(Collectors.toList());
@@ -127,7 +123,7 @@ abstract class PaymentsTable<RowType> extends AbstractReportTable<RowType> {
 
     public Collection<EventCashFlow> getEventCashFlows() {
         initializeIfNeed();
-        return eventCashFlows;
+        return ExcelTable.toList(eventCashFlows);
     }
 
     enum PaymentsTableHeader implements TableColumnDescription {
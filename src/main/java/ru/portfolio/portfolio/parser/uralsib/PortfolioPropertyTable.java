@@ -21,8 +21,6 @@ package ru.portfolio.portfolio.parser.uralsib;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.util.CellAddress;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.pojo.PortfolioProperty;
@@ -75,7 +73,7 @@ public class PortfolioPropertyTable extends InitializableReportTable<PortfolioPr
                 log.info("Таблица '{}' не найдена", ASSETS_TABLE);
                 return emptyList();
             }
-            Row row = table.findRow(ASSETS);
+            ReportPageRow row = table.findRow(ASSETS);
             if (row == null) {
                 return emptyList();
             }
@@ -98,7 +96,7 @@ public class PortfolioPropertyTable extends InitializableReportTable<PortfolioPr
                 return emptyList();
             }
             List<PortfolioProperty> exchangeRates = new ArrayList<>();
-            Cell cell = report.getSheet().getRow(address.getRow() + 1).getCell(0);
+            TableCell cell = report.getSheet().getRow(address.getRow() + 1).getCell(0);
             String text = ExcelTableHelper.getStringCellValue(cell);
             String[] words = text.split(" ");
             for (int i = 0; i < words.length; i++) {
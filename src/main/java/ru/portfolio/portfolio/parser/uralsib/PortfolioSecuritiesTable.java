@@ -23,7 +23,6 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 import ru.portfolio.portfolio.parser.uralsib.PortfolioSecuritiesTable.ReportSecurityInformation;
 import ru.portfolio.portfolio.pojo.Security;
@@ -43,7 +42,7 @@ public class PortfolioSecuritiesTable extends AbstractReportTable<ReportSecurity
     }
 
     @Override
-    protected Collection<ReportSecurityInformation> getRow(ExcelTable table, Row row) {
+    protected Collection<ReportSecurityInformation> getRow(ExcelTable table, ReportPageRow row) {
         Security securty = Security.builder()
                 .isin(table.getStringCellValue(row, ISIN))
                 .name(table.getStringCellValue(row, NAME))
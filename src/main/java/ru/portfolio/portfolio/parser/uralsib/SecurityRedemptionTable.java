@@ -19,7 +19,6 @@
 package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.Getter;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.time.Instant;
@@ -43,7 +42,7 @@ public class SecurityRedemptionTable extends AbstractReportTable<Map.Entry<Strin
     }
 
     @Override
-    protected Collection<Map.Entry<String, Instant>> getRow(ExcelTable table, Row row) {
+    protected Collection<Map.Entry<String, Instant>> getRow(ExcelTable table, ReportPageRow row) {
         return table.getStringCellValue(row, OPERATION).equalsIgnoreCase(REDEMPTION_DESCRIPTION) ?
                 singletonList(new AbstractMap.SimpleEntry<>(
                         table.getStringCellValue(row, NAME),
@@ -20,7 +20,6 @@ package ru.portfolio.portfolio.parser.uralsib;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
 import ru.portfolio.portfolio.parser.*;
 
 import java.math.BigDecimal;
@@ -45,7 +44,7 @@ public class SecurityTransactionTable extends AbstractReportTable<SecurityTransa
     }
 
     @Override
-    protected Collection<SecurityTransaction> getRow(ExcelTable table, Row row) {
+    protected Collection<SecurityTransaction> getRow(ExcelTable table, ReportPageRow row) {
         Long transactionId = getTransactionId(table, row, TRANSACTION);
         if (transactionId == null) return emptyList();
 
@@ -80,7 +79,7 @@ public class SecurityTransactionTable extends AbstractReportTable<SecurityTransa
                 .build());
     }
 
-    static Long getTransactionId(ExcelTable table, Row row, TableColumnDescription column) {
+    static Long getTransactionId(ExcelTable table, ReportPageRow row, TableColumnDescription column) {
         switch (table.getCell(row, column).getCellType()) {
             case STRING:
                 try {
@@ -22,15 +22,13 @@ import com.google.common.collect.Lists;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import ru.portfolio.portfolio.parser.BrokerReport;
 import ru.portfolio.portfolio.parser.ExcelTableHelper;
+import ru.portfolio.portfolio.parser.ReportPage;
+import ru.portfolio.portfolio.parser.ReportPageReader;
+import ru.portfolio.portfolio.parser.TableCell;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -42,8 +40,6 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 @RequiredArgsConstructor()
 @EqualsAndHashCode(of = "path")
@@ -54,9 +50,8 @@ public class UralsibBrokerReport implements BrokerReport {
     private static final String PORTFOLIO_MARKER = "Номер счета Клиента:";
     private static final String REPORT_DATE_MARKER = "за период";
 
-    private final Workbook book;
     @Getter
-    private final Sheet sheet;
+    private final ReportPage sheet;
     @Getter
     private final String portfolio;
     @Getter
@@ -64,35 +59,17 @@ public class UralsibBrokerReport implements BrokerReport {
     @Getter
     private final Instant reportDate;
 
-    public UralsibBrokerReport(ZipInputStream zis) throws IOException {
-        ZipEntry zipEntry = zis.getNextEntry();
-        this.path = Paths.get(zipEntry.getName());
-        this.book = getWorkBook(this.path.getFileName().toString(), zis);
-        this.sheet = book.getSheetAt(0);
-        this.portfolio = getPortfolio(this.sheet);
-        this.reportDate = getReportDate(this.sheet);
-    }
-
     public UralsibBrokerReport(String exelFileName, InputStream is) throws IOException {
         this.path = Paths.get(exelFileName);
-        this.book = getWorkBook(exelFileName, is);
-        this.sheet = book.getSheetAt(0);
+        this.sheet = ReportPageReader.read(exelFileName, is);
         this.portfolio = getPortfolio(this.sheet);
         this.reportDate = getReportDate(this.sheet);
     }
 
-    private Workbook getWorkBook(String exelFileName, InputStream is) throws IOException {
-        if (exelFileName.endsWith(".xls")) {
-            return new HSSFWorkbook(is); // constructor close zis
-        } else {
-            return new XSSFWorkbook(is);
-        }
-    }
-
-    private static String getPortfolio(Sheet sheet) {
+    private static String getPortfolio(ReportPage sheet) {
         try {
             CellAddress address = ExcelTableHelper.find(sheet, PORTFOLIO_MARKER);
-            for (Cell cell : sheet.getRow(address.getRow())) {
+            for (TableCell cell : sheet.getRow(address.getRow())) {
                 if (cell != null && cell.getColumnIndex() > address.getColumn()) {
                     if (cell.getCellType() == CellType.STRING) {
                         return ExcelTableHelper.getStringCellValue(cell)
@@ -110,11 +87,14 @@ public class UralsibBrokerReport implements BrokerReport {
         }
     }
 
-    private Instant getReportDate(Sheet sheet) {
+    /**
+     * @param sheet whole report sheet or its header
+     */
+    public static Instant getReportDate(ReportPage sheet) {
         try {
             CellAddress address = ExcelTableHelper.find(sheet, REPORT_DATE_MARKER, 0, Integer.MAX_VALUE,
                     (cell, value) -> cell.toLowerCase().contains(value.toString()));
-            return convertToInstant(
+            return toInstant(
                     Lists.reverse(
                             Arrays.asList(
                                     sheet.getRow(address.getRow())
@@ -128,6 +108,10 @@ public class UralsibBrokerReport implements BrokerReport {
     }
 
     public Instant convertToInstant(String value) {
+        return toInstant(value);
+    }
+
+    private static Instant toInstant(String value) {
         if (value.contains(":")) {
             return LocalDateTime.parse(value, UralsibBrokerReport.dateTimeFormatter).atZone(UralsibBrokerReport.zoneId).toInstant();
         } else {
@@ -140,7 +124,6 @@ public class UralsibBrokerReport implements BrokerReport {
     }
 
     @Override
-    public void close() throws IOException {
-        this.book.close();
+    public void close() {
     }
 }
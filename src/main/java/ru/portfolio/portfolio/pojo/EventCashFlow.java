@@ -28,6 +28,7 @@ import org.springframework.lang.Nullable;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.StringJoiner;
@@ -60,18 +61,14 @@ public class EventCashFlow {
     private String description;
 
     /**
-     * Checks DB unique index constraint
+     * @return key of DB unique index constraint: portfolio, timestamp, event type, value and currency
      */
-    public static boolean checkEquality(EventCashFlow cash1, EventCashFlow cash2) {
-        return cash1.getPortfolio().equals(cash2.getPortfolio()) &&
-                cash1.getTimestamp().equals(cash2.getTimestamp()) &&
-                cash1.getEventType().equals(cash2.getEventType()) &&
-                cash1.getValue().equals(cash2.getValue()) &&
-                cash1.getCurrency().equals(cash2.getCurrency());
+    public static Object getDuplicateKey(EventCashFlow cash) {
+        return Arrays.asList(cash.getPortfolio(), cash.getTimestamp(), cash.getEventType(), cash.getValue(), cash.getCurrency());
     }
 
     /**
-     * Merge information of two objects with equals by {@link #checkEquality(EventCashFlow, EventCashFlow)}
+     * Merge information of two objects with equal {@link #getDuplicateKey(EventCashFlow) keys}
      */
     public static Collection<EventCashFlow> mergeDuplicates(EventCashFlow cash1, EventCashFlow cash2) {
         StringJoiner joiner = new StringJoiner("; ");
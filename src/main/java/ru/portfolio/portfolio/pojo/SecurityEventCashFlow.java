@@ -28,6 +28,7 @@ import org.springframework.lang.Nullable;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -62,17 +63,14 @@ public class SecurityEventCashFlow {
     private String currency = "RUR";
 
     /**
-     * Checks DB unique index constraint
+     * @return key of DB unique index constraint: portfolio, timestamp, event type and isin
      */
-    public static boolean checkEquality(SecurityEventCashFlow cash1, SecurityEventCashFlow cash2) {
-        return cash1.getPortfolio().equals(cash2.getPortfolio()) &&
-                cash1.getTimestamp().equals(cash2.getTimestamp()) &&
-                cash1.getEventType().equals(cash2.getEventType()) &&
-                cash1.getIsin().equals(cash2.getIsin());
+    public static Object getDuplicateKey(SecurityEventCashFlow cash) {
+        return Arrays.asList(cash.getPortfolio(), cash.getTimestamp(), cash.getEventType(), cash.getIsin());
     }
 
     /**
-     * Merge information of two objects with equals by {@link #checkEquality(SecurityEventCashFlow, SecurityEventCashFlow)}
+     * Merge information of two objects with equal {@link #getDuplicateKey(SecurityEventCashFlow) keys}
      */
     public static Collection<SecurityEventCashFlow> mergeDuplicates(SecurityEventCashFlow cash1, SecurityEventCashFlow cash2) {
         if (!String.valueOf(cash1.getCurrency())
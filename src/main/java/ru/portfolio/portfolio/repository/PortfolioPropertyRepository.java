@@ -21,7 +21,6 @@ package ru.portfolio.portfolio.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.portfolio.portfolio.entity.PortfolioPropertyEntity;
 
-import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,9 +29,5 @@ public interface PortfolioPropertyRepository extends JpaRepository<PortfolioProp
     Optional<PortfolioPropertyEntity> findFirstByPortfolioIdAndPropertyOrderByTimestampDesc(String portfolio,
                                                                                             String property);
 
-    Optional<PortfolioPropertyEntity> findFirstByPropertyOrderByTimestampDesc(String property);
-
-    List<PortfolioPropertyEntity> findByPropertyAndTimestampBetweenOrderByTimestampDesc(String property,
-                                                                                        Instant startDate,
-                                                                                        Instant endDate);
+    List<PortfolioPropertyEntity> findByPropertyOrderByTimestampAsc(String property);
 }
@@ -0,0 +1,48 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.portfolio.portfolio.entity.PositionsSnapshotEntity;
+import ru.portfolio.portfolio.entity.PositionsSnapshotEntityPK;
+
+import java.util.ArrayList;
+
+public interface PositionsSnapshotRepository extends JpaRepository<PositionsSnapshotEntity, PositionsSnapshotEntityPK> {
+
+    ArrayList<PositionsSnapshotEntity> findByPkPortfolio(String portfolio);
+
+    /**
+     * Inserts snapshot or updates existing one, if snapshot is concurrently inserted by other import
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO positions_snapshot " +
+            "(portfolio, isin, transaction_count, last_transaction_timestamp, redemption_count, positions) " +
+            "VALUES (:#{#snapshot.pk.portfolio}, :#{#snapshot.pk.isin}, :#{#snapshot.transactionCount}, " +
+            ":#{#snapshot.lastTransactionTimestamp}, :#{#snapshot.redemptionCount}, :#{#snapshot.positions}) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "transaction_count = VALUES(transaction_count), " +
+            "last_transaction_timestamp = VALUES(last_transaction_timestamp), " +
+            "redemption_count = VALUES(redemption_count), " +
+            "positions = VALUES(positions)")
+    void upsert(@Param("snapshot") PositionsSnapshotEntity snapshot);
+}
@@ -22,6 +22,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import ru.portfolio.portfolio.entity.SecurityEventCashFlowEntity;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface SecurityEventCashFlowRepository extends JpaRepository<SecurityEventCashFlowEntity, Integer> {
 
@@ -30,4 +31,8 @@ public interface SecurityEventCashFlowRepository extends JpaRepository<SecurityE
             String isin,
             int cashFlowType);
 
+    ArrayList<SecurityEventCashFlowEntity> findByPortfolioIdAndCashFlowTypeIdInOrderByTimestampAsc(
+            String portfolio,
+            Collection<Integer> cashFlowType);
+
 }
\ No newline at end of file
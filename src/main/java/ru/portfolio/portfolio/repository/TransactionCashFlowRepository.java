@@ -20,21 +20,30 @@ package ru.portfolio.portfolio.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.portfolio.portfolio.entity.TransactionCashFlowEntity;
 import ru.portfolio.portfolio.entity.TransactionCashFlowEntityPK;
 import ru.portfolio.portfolio.pojo.CashFlowType;
 
 import java.util.List;
-import java.util.Optional;
 
 public interface TransactionCashFlowRepository extends JpaRepository<TransactionCashFlowEntity, TransactionCashFlowEntityPK> {
 
+    List<TransactionCashFlowEntity> findByPkPortfolio(String portfolio);
+
     List<TransactionCashFlowEntity> findByPkPortfolioAndPkTransactionId(String portfolio,
                                                                         long transactionId);
 
-    Optional<TransactionCashFlowEntity> findByPkPortfolioAndPkTransactionIdAndPkType(String portfolio,
-                                                                                     long transactionId,
-                                                                                     int cashFlowType);
+    /**
+     * Returns cash flows of security transactions
+     */
+    @Query(value = "SELECT c FROM TransactionCashFlowEntity c, TransactionEntity t " +
+            "WHERE c.pk.portfolio = :portfolio " +
+            "AND t.pk.portfolio = c.pk.portfolio " +
+            "AND t.pk.id = c.pk.transactionId " +
+            "AND t.security.isin = :isin")
+    List<TransactionCashFlowEntity> findSecurityCashFlows(@Param("portfolio") String portfolio,
+                                                         @Param("isin") String isin);
 
     @Query(value = "SELECT distinct t.currency FROM TransactionCashFlowEntity t " +
             "WHERE t.pk.portfolio = :portfolio AND t.pk.type = :#{#cashFlowType.id}")
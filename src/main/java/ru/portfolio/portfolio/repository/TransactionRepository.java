@@ -25,8 +25,10 @@ import ru.portfolio.portfolio.entity.TransactionEntity;
 import ru.portfolio.portfolio.entity.TransactionEntityPK;
 import ru.portfolio.portfolio.pojo.Portfolio;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<TransactionEntity, TransactionEntityPK> {
 
@@ -90,4 +92,26 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
 
     ArrayList<TransactionEntity> findBySecurityIsinAndPkPortfolioOrderByTimestampAscPkIdAsc(String isin,
                                                                                             String portfolio);
+
+    ArrayList<TransactionEntity> findBySecurityIsinAndPkPortfolioAndTimestampGreaterThanOrderByTimestampAscPkIdAsc(
+            String isin,
+            String portfolio,
+            Instant timestamp);
+
+    long countBySecurityIsinAndPkPortfolioAndTimestampLessThanEqual(String isin, String portfolio, Instant timestamp);
+
+    /**
+     * Returns transactions count and last transaction time of each portfolio security by one query
+     */
+    @Query(value = "SELECT t.security.isin AS isin, count(t) AS transactionCount, max(t.timestamp) AS lastTimestamp " +
+            "FROM TransactionEntity t " +
+            "WHERE t.pk.portfolio = :portfolio " +
+            "GROUP BY t.security.isin")
+    List<SecurityTransactionsSummary> findSecurityTransactionsSummaries(@Param("portfolio") String portfolio);
+
+    interface SecurityTransactionsSummary {
+        String getIsin();
+        long getTransactionCount();
+        Instant getLastTimestamp();
+    }
 }
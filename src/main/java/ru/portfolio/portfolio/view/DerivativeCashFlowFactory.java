@@ -34,10 +34,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
-import java.util.Deque;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -54,8 +51,9 @@ public class DerivativeCashFlowFactory {
     private final TransactionCashFlowConverter transactionCashFlowConverter;
 
     public DerivativeCashFlow getDerivativeCashFlow(Portfolio portfolio, Security contract) {
-        Deque<Transaction> transactions = getTransactions(portfolio, contract);
-        Deque<SecurityEventCashFlow> securityEventCashFlows = getSecurityEventCashFlows(portfolio, contract);
+        Map<LocalDate, List<Transaction>> transactions = getTradingDayTransactions(portfolio, contract);
+        List<SecurityEventCashFlow> securityEventCashFlows = getSecurityEventCashFlows(portfolio, contract);
+        Map<Long, Map<CashFlowType, TransactionCashFlow>> transactionCashFlows = getTransactionCashFlows(portfolio, contract);
 
         DerivativeCashFlow derivativeCashFlow = new DerivativeCashFlow();
         BigDecimal totalProfit = BigDecimal.ZERO;
@@ -63,14 +61,14 @@ public class DerivativeCashFlowFactory {
         for (SecurityEventCashFlow cash : securityEventCashFlows) {
             LocalDate currentDay = ZonedDateTime.ofInstant(cash.getTimestamp(), MOEX_TIMEZONE).toLocalDate();
             totalProfit = totalProfit.add(cash.getValue());
-            Deque<Transaction> dailyTransactions = getDailyTransactions(transactions, currentDay);
+            Collection<Transaction> dailyTransactions = transactions.getOrDefault(currentDay, Collections.emptyList());
             currentPosition += dailyTransactions.stream()
                     .mapToInt(Transaction::getCount)
                     .sum();
 
             derivativeCashFlow.getCashFlows().add(
                     DerivativeCashFlow.DailyCashFlow.builder()
-                            .dailyTransactions(getCashFlows(dailyTransactions))
+                            .dailyTransactions(getCashFlows(dailyTransactions, transactionCashFlows))
                             .dailyProfit(cash)
                             .totalProfit(totalProfit)
                             .position(currentPosition)
@@ -79,17 +77,23 @@ public class DerivativeCashFlowFactory {
         return derivativeCashFlow;
     }
 
-    private LinkedList<Transaction> getTransactions(Portfolio portfolio, Security contract) {
+    /**
+     * @return trading day -> transactions, ordered by timestamp
+     */
+    private Map<LocalDate, List<Transaction>> getTradingDayTransactions(Portfolio portfolio, Security contract) {
         return transactionRepository
                 .findBySecurityIsinAndPkPortfolioOrderByTimestampAscPkIdAsc(
                         contract.getIsin(),
                         portfolio.getId())
                 .stream()
                 .map(transactionConverter::fromEntity)
-                .collect(Collectors.toCollection(LinkedList::new));
+                .collect(Collectors.groupingBy(
+                        DerivativeCashFlowFactory::getTradingDay,
+                        HashMap::new,
+                        Collectors.toList()));
     }
 
-    private Deque<SecurityEventCashFlow> getSecurityEventCashFlows(Portfolio portfolio, Security contract) {
+    private List<SecurityEventCashFlow> getSecurityEventCashFlows(Portfolio portfolio, Security contract) {
         return securityEventCashFlowRepository
                     .findByPortfolioIdAndSecurityIsinAndCashFlowTypeIdOrderByTimestampAsc(
                             portfolio.getId(),
@@ -97,32 +101,40 @@ public class DerivativeCashFlowFactory {
                             CashFlowType.DERIVATIVE_PROFIT.getId())
                     .stream()
                     .map(securityEventCashFlowConverter::fromEntity)
-                    .collect(Collectors.toCollection(LinkedList::new));
+                    .collect(Collectors.toList());
     }
 
-    private Deque<Transaction> getDailyTransactions(Deque<Transaction> transactions, LocalDate currentDay) {
-        return transactions.stream()
-                .filter(e -> {
-                    LocalDateTime dateTime = ZonedDateTime.ofInstant(e.getTimestamp(), MOEX_TIMEZONE).toLocalDateTime();
-                    return currentDay.equals((dateTime.get(ChronoField.HOUR_OF_DAY) <= LAST_TRADE_HOUR) ?
-                            dateTime.toLocalDate() :
-                            dateTime.toLocalDate().plusDays(1));
-                })
-                .collect(Collectors.toCollection(LinkedList::new));
+    /**
+     * @return transaction id -> cash flows
+     */
+    private Map<Long, Map<CashFlowType, TransactionCashFlow>> getTransactionCashFlows(Portfolio portfolio, Security contract) {
+        return transactionCashFlowRepository
+                .findSecurityCashFlows(portfolio.getId(), contract.getIsin())
+                .stream()
+                .map(transactionCashFlowConverter::fromEntity)
+                .collect(Collectors.groupingBy(
+                        TransactionCashFlow::getTransactionId,
+                        Collectors.toMap(TransactionCashFlow::getEventType, Function.identity())));
+    }
+
+    /**
+     * Transactions after last trade hour are accounted by next day variation margin
+     */
+    private static LocalDate getTradingDay(Transaction transaction) {
+        LocalDateTime dateTime = ZonedDateTime.ofInstant(transaction.getTimestamp(), MOEX_TIMEZONE).toLocalDateTime();
+        return (dateTime.get(ChronoField.HOUR_OF_DAY) <= LAST_TRADE_HOUR) ?
+                dateTime.toLocalDate() :
+                dateTime.toLocalDate().plusDays(1);
     }
 
-    private LinkedHashMap<Transaction, Map<CashFlowType, TransactionCashFlow>> getCashFlows(Deque<Transaction> dailyTransactions) {
+    private LinkedHashMap<Transaction, Map<CashFlowType, TransactionCashFlow>> getCashFlows(
+            Collection<Transaction> dailyTransactions,
+            Map<Long, Map<CashFlowType, TransactionCashFlow>> transactionCashFlows) {
         LinkedHashMap<Transaction, Map<CashFlowType, TransactionCashFlow>> dailyTransactionsCashFlows = new LinkedHashMap<>();
         for (Transaction transaction : dailyTransactions) {
             if (transaction.getId() == null) continue;
             dailyTransactionsCashFlows.put(transaction,
-                    transactionCashFlowRepository
-                            .findByPkPortfolioAndPkTransactionId(
-                                    transaction.getPortfolio(),
-                                    transaction.getId())
-                            .stream()
-                            .map(transactionCashFlowConverter::fromEntity)
-                            .collect(Collectors.toMap(TransactionCashFlow::getEventType, Function.identity())));
+                    transactionCashFlows.getOrDefault(transaction.getId(), Collections.emptyMap()));
         }
         return dailyTransactionsCashFlows;
     }
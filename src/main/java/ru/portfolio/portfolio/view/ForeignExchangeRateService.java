@@ -18,9 +18,15 @@
 
 package ru.portfolio.portfolio.view;
 
+import com.google.common.cache.LoadingCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.portfolio.portfolio.cache.CacheFactory;
+import ru.portfolio.portfolio.entity.PortfolioPropertyEntity;
+import ru.portfolio.portfolio.parser.PortfolioPropertiesStoredEvent;
+import ru.portfolio.portfolio.pojo.PortfolioProperty;
 import ru.portfolio.portfolio.pojo.PortfolioPropertyType;
 import ru.portfolio.portfolio.repository.PortfolioPropertyRepository;
 
@@ -29,20 +35,26 @@ import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.cache.CacheLoader.from;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ForeignExchangeRateService {
-    private static final ZoneId moexTimezone = ZoneId.of("Europe/Moscow");
+    private static final String EXCHANGE_RATE_PROPERTY_SUFFIX = "RUB_EXCHANGE_RATE";
     private final PortfolioPropertyRepository portfolioPropertyRepository;
-    // base-currency -> quote-currency -> exchange-rate
-    private final Map<String, Map<String, BigDecimal>> cache = new ConcurrentHashMap<>();
-    // base-currency -> quote-currency -> local date -> exchange-rate
-    private final Map<String, Map<String, Map<LocalDate, BigDecimal>>> cacheByDate = new ConcurrentHashMap<>();
+    // currency -> exchange rates to RUB, loaded from DB once
+    private final LoadingCache<String, ExchangeRates> exchangeRates;
+
+    public ForeignExchangeRateService(PortfolioPropertyRepository portfolioPropertyRepository,
+                                      CacheFactory cacheFactory) {
+        this.portfolioPropertyRepository = portfolioPropertyRepository;
+        this.exchangeRates = cacheFactory.create("exchangeRates", 100, from(this::loadExchangeRates));
+    }
 
     /**
      * Возвращает котировку базовой валюты в цене котируемой валюты. Например, для USD/RUB базовая валюта - USD.
@@ -54,25 +66,19 @@ public class ForeignExchangeRateService {
     public BigDecimal getExchangeRate(String baseCurrency, String quoteCurrency) {
         if (baseCurrency.equalsIgnoreCase(quoteCurrency)) {
             return BigDecimal.ONE;
-        }
-        BigDecimal exchangeRate = getFromCache(baseCurrency, quoteCurrency);
-        if (exchangeRate != null) {
-            return exchangeRate;
         } else if (baseCurrency.equalsIgnoreCase("RUB")) {
-            exchangeRate = BigDecimal.ONE.divide(getExchangeRateToRub(quoteCurrency), 6, RoundingMode.HALF_UP);
+            return BigDecimal.ONE.divide(getExchangeRateToRub(quoteCurrency), 6, RoundingMode.HALF_UP);
         } else if (quoteCurrency.equalsIgnoreCase("RUB")) {
-            exchangeRate = getExchangeRateToRub(baseCurrency);
+            return getExchangeRateToRub(baseCurrency);
         } else {
             BigDecimal baseToRub = getExchangeRateToRub(baseCurrency);
             BigDecimal quoteToRub = getExchangeRateToRub(quoteCurrency);
-            exchangeRate = baseToRub.divide(quoteToRub, 6, RoundingMode.HALF_UP);
+            return baseToRub.divide(quoteToRub, 6, RoundingMode.HALF_UP);
         }
-        cache(baseCurrency, quoteCurrency, exchangeRate);
-        return exchangeRate;
     }
 
     /**
-     * Возвращает котировку базовой валюты в цене котируемой валюты. Например, для USD/RUB базовая валюта - USD.
+     * Возвращает последний известный курс валюты.
      *
      * @param currency базовая валюта
      * @return обменный курс валюты в российских рублях
@@ -81,27 +87,8 @@ public class ForeignExchangeRateService {
         if (currency.equalsIgnoreCase("rub")) {
             return BigDecimal.ONE;
         }
-        PortfolioPropertyType property = getExchangePropertyFor(currency);
-        BigDecimal exchangeRate = portfolioPropertyRepository
-                .findFirstByPropertyOrderByTimestampDesc(property.name())
-                .map(v -> BigDecimal.valueOf(Double.parseDouble(v.getValue())))
-                .orElse(BigDecimal.ZERO);
-
-        if (exchangeRate.equals(BigDecimal.ZERO)) {
-            exchangeRate = BigDecimal.valueOf(75);
-            switch (currency) {
-                case "EUR":
-                    exchangeRate = BigDecimal.valueOf(85);
-                    break;
-                case "GBP":
-                    exchangeRate = BigDecimal.valueOf(95);
-                    break;
-            }
-            log.debug("Не могу в БД найти курс валюты {}, использую значение по умолчанию = {}",
-                    currency, exchangeRate);
-        }
-        cache(currency, "RUB", exchangeRate);
-        return exchangeRate;
+        BigDecimal exchangeRate = getExchangeRates(currency).getLast();
+        return (exchangeRate != null) ? exchangeRate : getDefaultExchangeRate(currency);
     }
 
     /**
@@ -116,27 +103,20 @@ public class ForeignExchangeRateService {
     public BigDecimal getExchangeRate(String baseCurrency, String quoteCurrency, Instant instant, ZoneId timezone) {
         if (baseCurrency.equalsIgnoreCase(quoteCurrency)) {
             return BigDecimal.ONE;
-        }
-        LocalDate localDate = LocalDate.ofInstant(instant, timezone);
-        BigDecimal exchangeRate = getFromCache(baseCurrency, quoteCurrency, localDate);
-        if (exchangeRate != null) {
-            return exchangeRate;
         } else if (baseCurrency.equalsIgnoreCase("RUB")) {
-            exchangeRate = BigDecimal.ONE.divide(getExchangeRateToRub(quoteCurrency, instant, timezone),
+            return BigDecimal.ONE.divide(getExchangeRateToRub(quoteCurrency, instant, timezone),
                     6, RoundingMode.HALF_UP);
         } else if (quoteCurrency.equalsIgnoreCase("RUB")) {
-            exchangeRate = getExchangeRateToRub(baseCurrency, instant, timezone);
+            return getExchangeRateToRub(baseCurrency, instant, timezone);
         } else {
             BigDecimal baseToRub = getExchangeRateToRub(baseCurrency, instant, timezone);
             BigDecimal quoteToRub = getExchangeRateToRub(quoteCurrency, instant, timezone);
-            exchangeRate = baseToRub.divide(quoteToRub, 6, RoundingMode.HALF_UP);
+            return baseToRub.divide(quoteToRub, 6, RoundingMode.HALF_UP);
         }
-        cache(baseCurrency, quoteCurrency, localDate, exchangeRate);
-        return exchangeRate;
     }
 
     /**
-     * Возвращает котировку базовой валюты в цене котируемой валюты. Например, для USD/RUB базовая валюта - USD.
+     * Возвращает курс валюты на дату, если курс на дату не известен - ближайший предшествующий курс.
      *
      * @param currency базовая валюта
      * @param instant  на момент времени
@@ -147,60 +127,113 @@ public class ForeignExchangeRateService {
         if (currency.equalsIgnoreCase("rub")) {
             return BigDecimal.ONE;
         }
-        PortfolioPropertyType property = getExchangePropertyFor(currency);
         LocalDate localDate = LocalDate.ofInstant(instant, timezone);
-        ZonedDateTime dayStart = localDate.atStartOfDay(timezone);
-        BigDecimal exchangeRate = portfolioPropertyRepository
-                .findByPropertyAndTimestampBetweenOrderByTimestampDesc(
-                        property.name(),
-                        dayStart.toInstant(),
-                        dayStart.plusDays(1).minusNanos(1).toInstant())
+        BigDecimal exchangeRate = getExchangeRates(currency).get(localDate, timezone);
+        return (exchangeRate != null) ? exchangeRate : getDefaultExchangeRate(currency);
+    }
+
+    /**
+     * Drops exchange rates of currencies updated by committed report
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPortfolioPropertiesStored(PortfolioPropertiesStoredEvent event) {
+        invalidate(event.getProperties()
                 .stream()
-                .findFirst()
-                .map(v -> BigDecimal.valueOf(Double.parseDouble(v.getValue())))
-                .orElse(BigDecimal.ZERO);
-
-        if (exchangeRate.equals(BigDecimal.ZERO)) {
-            exchangeRate = BigDecimal.valueOf(75);
-            switch (currency) {
-                case "EUR":
-                    exchangeRate = BigDecimal.valueOf(85);
-                    break;
-                case "GBP":
-                    exchangeRate = BigDecimal.valueOf(95);
-                    break;
+                .map(PortfolioProperty::getProperty)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Drops loaded exchange rates, they will be reloaded from DB on next request
+     */
+    public void invalidate(Collection<PortfolioPropertyType> exchangeRateProperties) {
+        for (PortfolioPropertyType property : exchangeRateProperties) {
+            String name = property.name();
+            if (name.endsWith(EXCHANGE_RATE_PROPERTY_SUFFIX)) {
+                exchangeRates.invalidate(name.substring(0, 3));
             }
-            log.debug("Не могу в БД найти курс валюты {}, использую значение по умолчанию = {}",
-                    currency, exchangeRate);
         }
-        cache(currency, "RUB", localDate, exchangeRate);
-        return exchangeRate;
     }
 
     public static PortfolioPropertyType getExchangePropertyFor(String currency) {
-        return PortfolioPropertyType.valueOf(currency.toUpperCase() + "RUB_EXCHANGE_RATE");
+        return PortfolioPropertyType.valueOf(currency.toUpperCase() + EXCHANGE_RATE_PROPERTY_SUFFIX);
     }
 
-    private void cache(String baseCurrency, String quoteCurrency, BigDecimal exchangeRate) {
-        this.cache.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .putIfAbsent(quoteCurrency, exchangeRate);
+    private ExchangeRates getExchangeRates(String currency) {
+        return exchangeRates.getUnchecked(currency.toUpperCase());
     }
 
-    private void cache(String baseCurrency, String quoteCurrency, LocalDate localDate, BigDecimal exchangeRate) {
-        this.cacheByDate.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(quoteCurrency, k -> new ConcurrentHashMap<>())
-                .putIfAbsent(localDate, exchangeRate);
+    private ExchangeRates loadExchangeRates(String currency) {
+        List<PortfolioPropertyEntity> properties = portfolioPropertyRepository
+                .findByPropertyOrderByTimestampAsc(getExchangePropertyFor(currency).name());
+        Instant[] timestamps = new Instant[properties.size()];
+        BigDecimal[] rates = new BigDecimal[properties.size()];
+        for (int i = 0; i < properties.size(); i++) {
+            PortfolioPropertyEntity property = properties.get(i);
+            timestamps[i] = property.getTimestamp();
+            rates[i] = BigDecimal.valueOf(Double.parseDouble(property.getValue()));
+        }
+        return new ExchangeRates(timestamps, rates);
     }
 
-    private BigDecimal getFromCache(String baseCurrency, String quoteCurrency) {
-        return this.cache.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .get(quoteCurrency);
+    private static BigDecimal getDefaultExchangeRate(String currency) {
+        BigDecimal exchangeRate = BigDecimal.valueOf(75);
+        switch (currency) {
+            case "EUR":
+                exchangeRate = BigDecimal.valueOf(85);
+                break;
+            case "GBP":
+                exchangeRate = BigDecimal.valueOf(95);
+                break;
+        }
+        log.debug("Не могу в БД найти курс валюты {}, использую значение по умолчанию = {}",
+                currency, exchangeRate);
+        return exchangeRate;
     }
 
-    private BigDecimal getFromCache(String baseCurrency, String quoteCurrency, LocalDate localDate) {
-        return this.cacheByDate.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(quoteCurrency, k -> new ConcurrentHashMap<>())
-                .get(localDate);
+    /**
+     * Exchange rates ordered by timestamp. Rates are not grouped by days, day depends on requester timezone.
+     */
+    @RequiredArgsConstructor
+    private static class ExchangeRates {
+        private final Instant[] timestamps;
+        private final BigDecimal[] rates;
+
+        /**
+         * @return latest rate of the day, nearest prior rate or latest rate of the first known day
+         * if day is before all known rates, null if no rates known
+         */
+        BigDecimal get(LocalDate date, ZoneId timezone) {
+            if (rates.length == 0) {
+                return null;
+            }
+            int i = getLastIndexBefore(date.plusDays(1).atStartOfDay(timezone).toInstant());
+            if (i < 0) {
+                LocalDate firstDate = LocalDate.ofInstant(timestamps[0], timezone);
+                i = getLastIndexBefore(firstDate.plusDays(1).atStartOfDay(timezone).toInstant());
+            }
+            return rates[i];
+        }
 
+        /**
+         * @return index of the last rate with timestamp before instant or -1
+         */
+        private int getLastIndexBefore(Instant instant) {
+            int low = 0;
+            int high = timestamps.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (timestamps[middle].isBefore(instant)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low - 1;
+        }
+
+        BigDecimal getLast() {
+            return (rates.length == 0) ? null : rates[rates.length - 1];
+        }
     }
 }
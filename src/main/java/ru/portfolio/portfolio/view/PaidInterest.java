@@ -61,6 +61,6 @@ public class PaidInterest {
                 .flatMap(map -> map.keySet().stream())
                 .filter(position -> position instanceof OpenedPosition)
                 .filter(position -> position.wasOpenedAtTheInstant(instant))
-                .collect(Collectors.toCollection(LinkedList::new));
+                .collect(Collectors.toCollection(ArrayDeque::new));
     }
 }
@@ -24,9 +24,7 @@ import org.springframework.stereotype.Component;
 import ru.portfolio.portfolio.converter.SecurityEventCashFlowConverter;
 import ru.portfolio.portfolio.entity.SecurityEventCashFlowEntity;
 import ru.portfolio.portfolio.pojo.CashFlowType;
-import ru.portfolio.portfolio.pojo.Security;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
-import ru.portfolio.portfolio.repository.SecurityEventCashFlowRepository;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -40,31 +38,34 @@ import static ru.portfolio.portfolio.pojo.CashFlowType.*;
 @Slf4j
 public class PaidInterestFactory {
     private static final CashFlowType[] PAY_TYPES = new CashFlowType[]{COUPON, AMORTIZATION, DIVIDEND, TAX};
-    private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final SecurityEventCashFlowConverter securityEventCashFlowConverter;
 
-    public PaidInterest create(String portfolio, Security security, Positions positions) {
+    /**
+     * @param payments security payments ordered by timestamp, may contain not paid interest events
+     */
+    public PaidInterest create(Positions positions, Collection<SecurityEventCashFlowEntity> payments) {
         PaidInterest paidInterest = new PaidInterest();
         for (CashFlowType type : PAY_TYPES) {
-            paidInterest.get(type).putAll(getPositionWithPayments(portfolio, security.getIsin(), positions, type));
+            List<SecurityEventCashFlowEntity> accruedInterests = new ArrayList<>();
+            for (SecurityEventCashFlowEntity payment : payments) {
+                if (payment.getCashFlowType().getId() == type.getId()) {
+                    accruedInterests.add(payment);
+                }
+            }
+            paidInterest.get(type).putAll(getPositionWithPayments(positions, accruedInterests));
         }
         return paidInterest;
     }
 
-    private Map<Position, List<SecurityEventCashFlow>> getPositionWithPayments(String portfolio,
-                                                                               String isin,
-                                                                               Positions positions,
-                                                                               CashFlowType event) {
-        List<SecurityEventCashFlowEntity> accruedInterests = securityEventCashFlowRepository
-                .findByPortfolioIdAndSecurityIsinAndCashFlowTypeIdOrderByTimestampAsc(portfolio, isin, event.getId());
-
+    private Map<Position, List<SecurityEventCashFlow>> getPositionWithPayments(Positions positions,
+                                                                               List<SecurityEventCashFlowEntity> accruedInterests) {
         Map<Position, List<SecurityEventCashFlow>> payments = new HashMap<>();
         for (SecurityEventCashFlowEntity entity : accruedInterests) {
             SecurityEventCashFlow cash = securityEventCashFlowConverter.fromEntity(entity);
             try {
-                Instant bookClosureDate = getBookClosureDate(positions.getPositionHistories(), entity);
-                Deque<Position> paidPositions = getPayedPositions(positions.getClosedPositions(), bookClosureDate);
-                paidPositions.addAll(getPayedPositions(positions.getOpenedPositions(), bookClosureDate));
+                PositionTimeline timeline = positions.getTimeline();
+                Instant bookClosureDate = getBookClosureDate(timeline, entity);
+                Deque<Position> paidPositions = timeline.getPositionsOpenedAt(bookClosureDate);
 
                 getPayments(cash, paidPositions).forEach((position, cashs) ->
                         cashs.forEach(securityCash ->
@@ -81,45 +82,22 @@ public class PaidInterestFactory {
     }
 
     /**
-     * @param positionHistories securities position (date in the past -> securities count)
-     * @param payment           dividend or bonds accrued interest payment
+     * @param timeline securities positions timeline
+     * @param payment  dividend or bonds accrued interest payment
      * @return shares book closure (bonds accrued interest paying) date
      */
-    private Instant getBookClosureDate(Deque<PositionHistory> positionHistories, SecurityEventCashFlowEntity payment) {
+    private Instant getBookClosureDate(PositionTimeline timeline, SecurityEventCashFlowEntity payment) {
         Instant payDate = payment.getTimestamp(); // дата перечисления дивидендов/купонов Брокером
         int payForSecurities = payment.getCount();
-        Iterator<PositionHistory> it = positionHistories.descendingIterator();
         // дата перечисления дивидендов/купонов Эмитентом (дата фиксации реестра акционеров)
         // с точностью до временного интервала между 2-мя соседними транзакции
-        Instant bookClosureDate = null;
-        while (it.hasNext()) {
-            PositionHistory positionHistory = it.next();
-            Instant pastInstant = positionHistory.getInstant();
-            if (payDate.isAfter(pastInstant) && (payForSecurities == positionHistory.getOpenedPositions())) {
-                bookClosureDate = pastInstant.plusNanos(1);
-                break;
-            }
-        }
-        if (bookClosureDate == null) {
-            throw new IllegalArgumentException("История транзакций для ЦБ " + payment.getSecurity().getIsin() +
-                    ((payment.getSecurity().getName() != null) ? " (\"" + payment.getSecurity().getName() + "\") " : " ") +
-                    "не полная, не найден день в прошлом, " +
-                    "в который количество открытых позиций равно " + payForSecurities +
-                    ", по которым выполнена выплата купона/дивиденда");
-        }
-        return bookClosureDate;
-    }
-
-    private <T extends Position> Deque<Position> getPayedPositions(Deque<T> positions, Instant bookClosureDate) {
-        Iterator<? extends T> it = positions.descendingIterator();
-        Deque<Position> payedPositions = new LinkedList<>();
-        while (it.hasNext()) {
-            T position = it.next();
-            if (position.wasOpenedAtTheInstant(bookClosureDate)) {
-                payedPositions.addFirst(position);
-            }
-        }
-        return payedPositions;
+        return timeline.getLastInstantBefore(payDate, payForSecurities)
+                .map(pastInstant -> pastInstant.plusNanos(1))
+                .orElseThrow(() -> new IllegalArgumentException("История транзакций для ЦБ " + payment.getSecurity().getIsin() +
+                        ((payment.getSecurity().getName() != null) ? " (\"" + payment.getSecurity().getName() + "\") " : " ") +
+                        "не полная, не найден день в прошлом, " +
+                        "в который количество открытых позиций равно " + payForSecurities +
+                        ", по которым выполнена выплата купона/дивиденда"));
     }
 
     private Map<Position, List<SecurityEventCashFlow>> getPayments(SecurityEventCashFlow cash, Deque<Position> paidPositions) {
@@ -18,11 +18,9 @@
 
 package ru.portfolio.portfolio.view;
 
-import com.google.common.jimfs.Jimfs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.util.IOUtils;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.portfolio.portfolio.view.excel.ExcelView;
@@ -31,9 +29,6 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.nio.file.FileSystem;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Duration;
 import java.util.stream.Stream;
 
@@ -43,32 +38,37 @@ import static java.util.stream.Collectors.joining;
 @RequiredArgsConstructor
 @Slf4j
 public class PortfolioViewRestController {
+    private static final int ROW_ACCESS_WINDOW_SIZE = 100;
     private final ExcelView excelView;
-    private final FileSystem jimfs = Jimfs.newFileSystem();
 
     @GetMapping("/portfolio")
     public void getExelView(HttpServletResponse response) throws IOException {
+        SXSSFWorkbook book = new SXSSFWorkbook(ROW_ACCESS_WINDOW_SIZE);
         try {
             long t0 = System.nanoTime();
             String fileName = "portfolio.xlsx";
-            Path path = jimfs.getPath(fileName);
-            try (XSSFWorkbook book = new XSSFWorkbook()) {
-                excelView.writeTo(book);
-                book.write(Files.newOutputStream(path));
-            }
+            excelView.writeTo(book);
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-disposition", "attachment; filename=" + fileName);
-            IOUtils.copy(Files.newInputStream(path), response.getOutputStream());
-            log.info("Отчет {} сформирован за {}", path.getFileName(), Duration.ofNanos(System.nanoTime() - t0));
+            book.write(response.getOutputStream());
+            log.info("Отчет {} сформирован за {}", fileName, Duration.ofNanos(System.nanoTime() - t0));
         } catch (Exception e) {
+            if (response.isCommitted()) {
+                log.error("Ошибка при передаче отчета", e);
+                return;
+            }
             StringWriter sw = new StringWriter();
             PrintWriter pw = new PrintWriter(sw);
             e.printStackTrace(pw);
             String httpBody = Stream.of(sw.toString().split("\n"))
                     .collect(joining("</br>", "<b>Ошибка сборки отчета</b></br></br>", ""));
+            response.reset();
             response.setContentType("text/html; charset=utf-8");
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             response.getWriter().write(httpBody);
+        } finally {
+            book.dispose(); // deletes temp files
+            book.close();
         }
         response.flushBuffer();
     }
@@ -32,7 +32,11 @@ class PositionHistory {
     private final int openedPositions;
 
     PositionHistory(Transaction transaction, int openedPositions) {
-        this.instant = transaction.getTimestamp();
+        this(transaction.getTimestamp(), openedPositions);
+    }
+
+    PositionHistory(Instant instant, int openedPositions) {
+        this.instant = instant;
         this.openedPositions = openedPositions;
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Array-backed index of {@link Positions} ordered by timestamp. Positions are opened and closed in FIFO order, so
+ * both open and close instants of closed positions are non-decreasing and positions opened at any instant
+ * form a continuous range found by binary search.
+ */
+class PositionTimeline {
+    // opened positions count -> sorted position history instants
+    private final Map<Integer, Instant[]> positionHistories = new HashMap<>();
+    private final ClosedPosition[] closedPositions;
+    private final Instant[] closedPositionOpenInstants;
+    private final Instant[] closedPositionCloseInstants;
+    private final OpenedPosition[] openedPositions;
+    private final Instant[] openedPositionOpenInstants;
+    private final boolean isOrdered;
+
+    PositionTimeline(Positions positions) {
+        Map<Integer, List<Instant>> histories = new HashMap<>();
+        for (PositionHistory history : positions.getPositionHistories()) {
+            histories.computeIfAbsent(history.getOpenedPositions(), k -> new ArrayList<>())
+                    .add(history.getInstant());
+        }
+        histories.forEach((count, instants) -> {
+            Instant[] array = instants.toArray(new Instant[0]);
+            Arrays.sort(array);
+            positionHistories.put(count, array);
+        });
+        this.closedPositions = positions.getClosedPositions().toArray(new ClosedPosition[0]);
+        this.closedPositionOpenInstants = getInstants(closedPositions, p -> p.getOpenTransaction().getTimestamp());
+        this.closedPositionCloseInstants = getInstants(closedPositions, p -> p.getCloseTransaction().getTimestamp());
+        this.openedPositions = positions.getOpenedPositions().toArray(new OpenedPosition[0]);
+        this.openedPositionOpenInstants = getInstants(openedPositions, p -> p.getOpenTransaction().getTimestamp());
+        this.isOrdered = isOrdered(closedPositionOpenInstants) && isOrdered(closedPositionCloseInstants) &&
+                isOrdered(openedPositionOpenInstants);
+    }
+
+    /**
+     * @return last position history instant before the instant with given opened positions count
+     */
+    Optional<Instant> getLastInstantBefore(Instant instant, int openedPositions) {
+        Instant[] instants = positionHistories.get(openedPositions);
+        if (instants == null) {
+            return Optional.empty();
+        }
+        int i = lowerBound(instants, instant) - 1;
+        return (i >= 0) ? Optional.of(instants[i]) : Optional.empty();
+    }
+
+    /**
+     * @return closed and opened positions, which were opened at the instant, in {@link Positions} order
+     */
+    Deque<Position> getPositionsOpenedAt(Instant instant) {
+        Deque<Position> positions = new ArrayDeque<>();
+        if (isOrdered) {
+            int from = upperBound(closedPositionCloseInstants, instant);
+            int to = lowerBound(closedPositionOpenInstants, instant);
+            positions.addAll(Arrays.asList(closedPositions).subList(from, Math.max(from, to)));
+            positions.addAll(Arrays.asList(openedPositions).subList(0, lowerBound(openedPositionOpenInstants, instant)));
+        } else {
+            for (Position position : closedPositions) {
+                if (position.wasOpenedAtTheInstant(instant)) positions.add(position);
+            }
+            for (Position position : openedPositions) {
+                if (position.wasOpenedAtTheInstant(instant)) positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    private static <T> Instant[] getInstants(T[] positions, Function<T, Instant> instantGetter) {
+        Instant[] instants = new Instant[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            instants[i] = instantGetter.apply(positions[i]);
+        }
+        return instants;
+    }
+
+    private static boolean isOrdered(Instant[] instants) {
+        for (int i = 1; i < instants.length; i++) {
+            if (instants[i - 1].isAfter(instants[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return index of first element not less than the instant
+     */
+    private static int lowerBound(Instant[] instants, Instant instant) {
+        int low = 0, high = instants.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (instants[mid].isBefore(instant)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of first element greater than the instant
+     */
+    private static int upperBound(Instant[] instants, Instant instant) {
+        int low = 0, high = instants.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (instants[mid].isAfter(instant)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -24,9 +24,10 @@ import ru.portfolio.portfolio.pojo.CashFlowType;
 import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
 import ru.portfolio.portfolio.pojo.Transaction;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Deque;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static java.lang.Integer.min;
@@ -39,13 +40,38 @@ import static java.lang.Math.abs;
 @Slf4j
 public class Positions {
     @Getter
-    Deque<PositionHistory> positionHistories = new LinkedList<>();
+    private final Deque<PositionHistory> positionHistories = new ArrayDeque<>();
     @Getter
-    private final Deque<OpenedPosition> openedPositions = new LinkedList<>();
+    private final Deque<OpenedPosition> openedPositions = new ArrayDeque<>();
     @Getter
-    private final Deque<ClosedPosition> closedPositions = new LinkedList<>();
+    private final Deque<ClosedPosition> closedPositions = new ArrayDeque<>();
+    private PositionTimeline timeline;
 
-    public Positions(Deque<Transaction> transactions, Deque<SecurityEventCashFlow> redemptions) {
+    /**
+     * @param transactions security transactions ordered by timestamp
+     * @param redemptions bonds redemptions ordered by timestamp
+     */
+    public Positions(Collection<Transaction> transactions, Collection<SecurityEventCashFlow> redemptions) {
+        addTransactions(transactions);
+        addRedemptions(redemptions);
+    }
+
+    /**
+     * Restores positions from {@link PositionsSnapshot}
+     */
+    Positions(Collection<PositionHistory> positionHistories,
+              Collection<OpenedPosition> openedPositions,
+              Collection<ClosedPosition> closedPositions) {
+        this.positionHistories.addAll(positionHistories);
+        this.openedPositions.addAll(openedPositions);
+        this.closedPositions.addAll(closedPositions);
+    }
+
+    /**
+     * Transactions should be after already added ones
+     */
+    void addTransactions(Collection<Transaction> transactions) {
+        this.timeline = null;
         updateSecuritiesPastPositions(transactions);
         for (Transaction transaction : transactions) {
             if (isIncreasePosition(transaction)) {
@@ -54,13 +80,21 @@ public class Positions {
                 closePositions(transaction, CashFlowType.PRICE);
             }
         }
-        if (!redemptions.isEmpty() && (redemptions.peek() != null)) {
-            String isin = redemptions.peek().getIsin();
-            updateSecuritiesPastPositions(redemptions.stream()
+    }
+
+    /**
+     * Redemptions should be added after all transactions
+     */
+    void addRedemptions(Collection<SecurityEventCashFlow> redemptions) {
+        this.timeline = null;
+        if (!redemptions.isEmpty() && (redemptions.iterator().next() != null)) {
+            String isin = redemptions.iterator().next().getIsin();
+            List<Transaction> transactions = redemptions.stream()
                     .map(Positions::convertToTransaction)
-                    .collect(Collectors.toCollection(LinkedList::new)));
-            for (SecurityEventCashFlow  redemption : redemptions) {
-                closePositions(convertToTransaction(redemption), CashFlowType.REDEMPTION);
+                    .collect(Collectors.toList());
+            updateSecuritiesPastPositions(transactions);
+            for (Transaction transaction : transactions) {
+                closePositions(transaction, CashFlowType.REDEMPTION);
             }
             if (!this.openedPositions.isEmpty() || this.positionHistories.getLast().getOpenedPositions() != 0) {
                 log.error("Предоставлены не все транзакции по бумаге " +
@@ -72,7 +106,17 @@ public class Positions {
         }
     }
 
-    private void updateSecuritiesPastPositions(Queue<Transaction> transactions) {
+    /**
+     * @return index for positions lookup by timestamp, built on first call
+     */
+    PositionTimeline getTimeline() {
+        if (timeline == null) {
+            timeline = new PositionTimeline(this);
+        }
+        return timeline;
+    }
+
+    private void updateSecuritiesPastPositions(Collection<Transaction> transactions) {
         int openedPosition = (!this.positionHistories.isEmpty()) ? this.positionHistories.peekLast().getOpenedPositions() : 0;
         for (Transaction transaction : transactions) {
             openedPosition += transaction.getCount();
@@ -0,0 +1,132 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.portfolio.portfolio.pojo.CashFlowType;
+import ru.portfolio.portfolio.pojo.Transaction;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@link Positions} state of one security, stored in DB as JSON
+ */
+@Data
+@NoArgsConstructor
+class PositionsSnapshot {
+    private List<PositionHistoryState> positionHistories = new ArrayList<>();
+    private List<OpenedPositionState> openedPositions = new ArrayList<>();
+    private List<ClosedPositionState> closedPositions = new ArrayList<>();
+
+    static PositionsSnapshot of(Positions positions) {
+        PositionsSnapshot snapshot = new PositionsSnapshot();
+        for (PositionHistory history : positions.getPositionHistories()) {
+            snapshot.positionHistories.add(new PositionHistoryState(history.getInstant(), history.getOpenedPositions()));
+        }
+        for (OpenedPosition position : positions.getOpenedPositions()) {
+            snapshot.openedPositions.add(new OpenedPositionState(
+                    TransactionState.of(position.getOpenTransaction()),
+                    position.getUnclosedPositions()));
+        }
+        for (ClosedPosition position : positions.getClosedPositions()) {
+            snapshot.closedPositions.add(new ClosedPositionState(
+                    TransactionState.of(position.getOpenTransaction()),
+                    TransactionState.of(position.getCloseTransaction()),
+                    position.getCount(),
+                    position.getClosingEvent()));
+        }
+        return snapshot;
+    }
+
+    Positions toPositions(String portfolio, String isin) {
+        List<PositionHistory> histories = positionHistories.stream()
+                .map(history -> new PositionHistory(history.getInstant(), history.getOpenedPositions()))
+                .collect(Collectors.toList());
+        List<OpenedPosition> opened = openedPositions.stream()
+                .map(position -> new OpenedPosition(
+                        position.getOpenTransaction().toTransaction(portfolio, isin),
+                        position.getUnclosedPositions()))
+                .collect(Collectors.toList());
+        List<ClosedPosition> closed = closedPositions.stream()
+                .map(position -> new ClosedPosition(
+                        new OpenedPosition(position.getOpenTransaction().toTransaction(portfolio, isin), 0),
+                        position.getCloseTransaction().toTransaction(portfolio, isin),
+                        position.getCount(),
+                        position.getClosingEvent()))
+                .collect(Collectors.toList());
+        return new Positions(histories, opened, closed);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class TransactionState {
+        /**
+         * Null for bonds redemption
+         */
+        private Long id;
+        private Instant timestamp;
+        private int count;
+
+        static TransactionState of(Transaction transaction) {
+            return new TransactionState(transaction.getId(), transaction.getTimestamp(), transaction.getCount());
+        }
+
+        Transaction toTransaction(String portfolio, String isin) {
+            return Transaction.builder()
+                    .id(id)
+                    .portfolio(portfolio)
+                    .isin(isin)
+                    .timestamp(timestamp)
+                    .count(count)
+                    .build();
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class PositionHistoryState {
+        private Instant instant;
+        private int openedPositions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class OpenedPositionState {
+        private TransactionState openTransaction;
+        private int unclosedPositions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class ClosedPositionState {
+        private TransactionState openTransaction;
+        private TransactionState closeTransaction;
+        private int count;
+        private CashFlowType closingEvent;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.portfolio.portfolio.converter.SecurityEventCashFlowConverter;
+import ru.portfolio.portfolio.converter.TransactionConverter;
+import ru.portfolio.portfolio.entity.PositionsSnapshotEntity;
+import ru.portfolio.portfolio.entity.PositionsSnapshotEntityPK;
+import ru.portfolio.portfolio.entity.TransactionEntity;
+import ru.portfolio.portfolio.parser.SecurityEventCashFlowsStoredEvent;
+import ru.portfolio.portfolio.parser.TransactionsStoredEvent;
+import ru.portfolio.portfolio.pojo.CashFlowType;
+import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
+import ru.portfolio.portfolio.pojo.Transaction;
+import ru.portfolio.portfolio.repository.PositionsSnapshotRepository;
+import ru.portfolio.portfolio.repository.SecurityEventCashFlowRepository;
+import ru.portfolio.portfolio.repository.TransactionRepository;
+import ru.portfolio.portfolio.repository.TransactionRepository.SecurityTransactionsSummary;
+
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * Stores calculated {@link Positions} of securities. Portfolio history grows at the end, so snapshot is updated by
+ * new transactions only, back-dated transactions lead to full snapshot recalculation.
+ */
+@Service
+@Slf4j
+public class PositionsSnapshotService {
+    private final PositionsSnapshotRepository positionsSnapshotRepository;
+    private final TransactionRepository transactionRepository;
+    private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
+    private final TransactionConverter transactionConverter;
+    private final SecurityEventCashFlowConverter securityEventCashFlowConverter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public PositionsSnapshotService(PositionsSnapshotRepository positionsSnapshotRepository,
+                                    TransactionRepository transactionRepository,
+                                    SecurityEventCashFlowRepository securityEventCashFlowRepository,
+                                    TransactionConverter transactionConverter,
+                                    SecurityEventCashFlowConverter securityEventCashFlowConverter,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.positionsSnapshotRepository = positionsSnapshotRepository;
+        this.transactionRepository = transactionRepository;
+        this.securityEventCashFlowRepository = securityEventCashFlowRepository;
+        this.transactionConverter = transactionConverter;
+        this.securityEventCashFlowConverter = securityEventCashFlowConverter;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Updates snapshots of securities traded by committed report
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsStored(TransactionsStoredEvent event) {
+        update(event.getTransactions()
+                .stream()
+                .collect(groupingBy(Transaction::getPortfolio, mapping(Transaction::getIsin, toSet()))));
+    }
+
+    /**
+     * Updates snapshots of securities redeemed by committed report
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSecurityEventCashFlowsStored(SecurityEventCashFlowsStoredEvent event) {
+        update(event.getCashFlows()
+                .stream()
+                .filter(cash -> cash.getEventType() == CashFlowType.REDEMPTION)
+                .collect(groupingBy(SecurityEventCashFlow::getPortfolio, mapping(SecurityEventCashFlow::getIsin, toSet()))));
+    }
+
+    /**
+     * Each snapshot is updated in its own DB transaction after report import commit, so snapshot failure
+     * doesn't fail report import. Outdated snapshot is not used, positions are calculated while report creation.
+     *
+     * @param isins portfolio -> securities with new transactions or redemptions
+     */
+    private void update(Map<String, Set<String>> isins) {
+        isins.forEach((portfolio, portfolioIsins) -> {
+            for (String isin : portfolioIsins) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> update(portfolio, isin));
+                } catch (Exception e) {
+                    log.warn("Не могу обновить позиции по бумаге {} портфеля {}", isin, portfolio, e);
+                }
+            }
+        });
+    }
+
+    private void update(String portfolio, String isin) {
+        PositionsSnapshotEntityPK pk = getPk(portfolio, isin);
+        PositionsSnapshotEntity entity = positionsSnapshotRepository.findById(pk).orElse(null);
+        boolean isNew = (entity == null);
+        List<SecurityEventCashFlow> redemptions = getRedemptions(portfolio, isin);
+        List<Transaction> newTransactions = (entity == null) ? null : getNewTransactions(entity, redemptions);
+        Positions positions;
+        if (newTransactions == null) {
+            List<Transaction> transactions = getTransactions(portfolio, isin);
+            positions = new Positions(transactions, redemptions);
+            entity = new PositionsSnapshotEntity();
+            entity.setPk(pk);
+            entity.setTransactionCount(transactions.size());
+            if (!transactions.isEmpty()) {
+                entity.setLastTransactionTimestamp(transactions.get(transactions.size() - 1).getTimestamp());
+            }
+        } else if (newTransactions.isEmpty() && redemptions.size() == entity.getRedemptionCount()) {
+            return; // up to date
+        } else {
+            positions = readPositions(entity);
+            positions.addTransactions(newTransactions);
+            positions.addRedemptions(redemptions.subList(entity.getRedemptionCount(), redemptions.size()));
+            entity.setTransactionCount(entity.getTransactionCount() + newTransactions.size());
+            if (!newTransactions.isEmpty()) {
+                entity.setLastTransactionTimestamp(newTransactions.get(newTransactions.size() - 1).getTimestamp());
+            }
+        }
+        entity.setRedemptionCount(redemptions.size());
+        entity.setPositions(writePositions(positions));
+        if (isNew) {
+            // snapshot of the same security may be inserted by concurrent import
+            positionsSnapshotRepository.upsert(entity);
+        } else {
+            positionsSnapshotRepository.save(entity);
+        }
+    }
+
+    /**
+     * Removes snapshot after transaction or security event is changed not by report import.
+     * Such changes are not detected by snapshot update, positions are recalculated by next update.
+     */
+    public void delete(String portfolio, String isin) {
+        positionsSnapshotRepository.findById(getPk(portfolio, isin))
+                .ifPresent(positionsSnapshotRepository::delete);
+    }
+
+    /**
+     * @return transactions after snapshot or null if snapshot can't be updated incrementally
+     */
+    private List<Transaction> getNewTransactions(PositionsSnapshotEntity entity, List<SecurityEventCashFlow> redemptions) {
+        String portfolio = entity.getPk().getPortfolio();
+        String isin = entity.getPk().getIsin();
+        if (redemptions.size() < entity.getRedemptionCount()) {
+            return null;
+        }
+        List<TransactionEntity> transactions;
+        if (entity.getLastTransactionTimestamp() == null) {
+            transactions = transactionRepository.findBySecurityIsinAndPkPortfolioOrderByTimestampAscPkIdAsc(isin, portfolio);
+        } else if (transactionRepository.countBySecurityIsinAndPkPortfolioAndTimestampLessThanEqual(
+                isin, portfolio, entity.getLastTransactionTimestamp()) != entity.getTransactionCount()) {
+            return null; // back-dated transactions
+        } else {
+            transactions = transactionRepository.findBySecurityIsinAndPkPortfolioAndTimestampGreaterThanOrderByTimestampAscPkIdAsc(
+                    isin, portfolio, entity.getLastTransactionTimestamp());
+        }
+        if (entity.getRedemptionCount() > 0 && !transactions.isEmpty()) {
+            return null; // redemptions are processed after all transactions
+        }
+        return transactions.stream()
+                .map(transactionConverter::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Security transactions are loaded only if snapshot is absent or outdated.
+     *
+     * @param snapshot snapshot of security positions, may be null
+     * @param summary security transactions count and last transaction time, may be null if there are no transactions
+     * @param redemptions all security redemptions ordered by timestamp
+     * @return positions from snapshot if it accounts all transactions and redemptions, otherwise calculated positions
+     */
+    public Positions getPositions(String portfolio, String isin,
+                                  @Nullable PositionsSnapshotEntity snapshot,
+                                  @Nullable SecurityTransactionsSummary summary,
+                                  List<SecurityEventCashFlow> redemptions) {
+        if (snapshot != null && isActual(snapshot, summary, redemptions)) {
+            try {
+                return readPositions(snapshot);
+            } catch (Exception e) {
+                log.warn("Не могу прочитать позиции по бумаге {} портфеля {}", isin, portfolio, e);
+            }
+        }
+        return new Positions(getTransactions(portfolio, isin), redemptions);
+    }
+
+    /**
+     * Transactions changed not by report import drop snapshot, so snapshot is actual if it accounts
+     * the same count of transactions and redemptions and the last transaction
+     */
+    private static boolean isActual(PositionsSnapshotEntity snapshot,
+                                    @Nullable SecurityTransactionsSummary summary,
+                                    List<SecurityEventCashFlow> redemptions) {
+        if (snapshot.getRedemptionCount() != redemptions.size()) {
+            return false;
+        } else if (summary == null) {
+            return snapshot.getTransactionCount() == 0;
+        }
+        return snapshot.getTransactionCount() == summary.getTransactionCount() &&
+                Objects.equals(snapshot.getLastTransactionTimestamp(), summary.getLastTimestamp());
+    }
+
+    private Positions readPositions(PositionsSnapshotEntity entity) {
+        try {
+            return objectMapper.readValue(entity.getPositions(), PositionsSnapshot.class)
+                    .toPositions(entity.getPk().getPortfolio(), entity.getPk().getIsin());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String writePositions(Positions positions) {
+        try {
+            return objectMapper.writeValueAsString(PositionsSnapshot.of(positions));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Transaction> getTransactions(String portfolio, String isin) {
+        return transactionRepository
+                .findBySecurityIsinAndPkPortfolioOrderByTimestampAscPkIdAsc(isin, portfolio)
+                .stream()
+                .map(transactionConverter::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private List<SecurityEventCashFlow> getRedemptions(String portfolio, String isin) {
+        return securityEventCashFlowRepository
+                .findByPortfolioIdAndSecurityIsinAndCashFlowTypeIdOrderByTimestampAsc(
+                        portfolio, isin, CashFlowType.REDEMPTION.getId())
+                .stream()
+                .map(securityEventCashFlowConverter::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private static PositionsSnapshotEntityPK getPk(String portfolio, String isin) {
+        PositionsSnapshotEntityPK pk = new PositionsSnapshotEntityPK();
+        pk.setPortfolio(portfolio);
+        pk.setIsin(isin);
+        return pk;
+    }
+}
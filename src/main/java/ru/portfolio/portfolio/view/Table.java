@@ -18,27 +18,162 @@
 
 package ru.portfolio.portfolio.view;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.*;
 
-public class Table extends LinkedList<Table.Record> {
+public class Table extends ArrayList<Table.Record> {
 
     public void addEmptyRecord() {
-        add(Record.EMPTY);
+        add(new Record());
     }
 
     public static Record newRecord() {
         return new Record();
     }
 
-    public static class Record extends HashMap<TableHeader, Object> {
-        public static Record EMPTY = new Record();
+    /**
+     * Table row. Cells are stored in array indexed by header ordinal, header enum is fixed by first put.
+     * Null value is not stored, so {@code put(header, null)} removes cell.
+     */
+    public static class Record extends AbstractMap<TableHeader, Object> {
+        private static final ClassValue<TableHeader[]> headers = new ClassValue<>() {
+            @Override
+            protected TableHeader[] computeValue(Class<?> type) {
+                return (TableHeader[]) type.getEnumConstants();
+            }
+        };
+        private Class<?> headerType;
+        private Object[] values;
+        private int size = 0;
 
         public Record() {
         }
 
         public Record(Record record) {
-            super(record);
+            if (record.headerType != null) {
+                headerType = record.headerType;
+                values = record.values.clone();
+                size = record.size;
+            }
+        }
+
+        public Class<? extends TableHeader> getHeaderType() {
+            //noinspection unchecked
+            return (Class<? extends TableHeader>) headerType;
+        }
+
+        @Override
+        public Object put(TableHeader header, Object value) {
+            if (value == null) {
+                return remove(header);
+            }
+            if (headerType == null) {
+                headerType = getEnumType(header);
+                values = new Object[headers.get(headerType).length];
+            } else if (headerType != getEnumType(header)) {
+                throw new IllegalArgumentException("Столбец " + header + " не из таблицы " + headerType.getSimpleName());
+            }
+            Object previous = values[header.ordinal()];
+            values[header.ordinal()] = value;
+            if (previous == null) size++;
+            return previous;
+        }
+
+        @Override
+        public Object get(Object header) {
+            return isOwnHeader(header) ? values[((TableHeader) header).ordinal()] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object header) {
+            return get(header) != null;
+        }
+
+        @Override
+        public Object remove(Object header) {
+            if (!isOwnHeader(header)) {
+                return null;
+            }
+            int ordinal = ((TableHeader) header).ordinal();
+            Object previous = values[ordinal];
+            values[ordinal] = null;
+            if (previous != null) size--;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            if (values != null) Arrays.fill(values, null);
+            size = 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<TableHeader, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<TableHeader, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        private boolean isOwnHeader(Object header) {
+            return headerType != null && header instanceof TableHeader && headerType == getEnumType(header);
+        }
+
+        private static Class<?> getEnumType(Object header) {
+            if (!(header instanceof Enum)) {
+                throw new IllegalArgumentException("Столбец таблицы должен быть перечислением: " + header);
+            }
+            return ((Enum<?>) header).getDeclaringClass();
+        }
+
+        private class EntryIterator implements Iterator<Entry<TableHeader, Object>> {
+            private int next = -1;
+            private int last = -1;
+
+            EntryIterator() {
+                advance();
+            }
+
+            private void advance() {
+                do {
+                    next++;
+                } while (values != null && next < values.length && values[next] == null);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return values != null && next < values.length;
+            }
+
+            @Override
+            public Entry<TableHeader, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                advance();
+                return new SimpleImmutableEntry<>(headers.get(headerType)[last], values[last]);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0 || values[last] == null) {
+                    throw new IllegalStateException();
+                }
+                values[last] = null;
+                size--;
+            }
         }
     }
 }
@@ -18,12 +18,11 @@
 
 package ru.portfolio.portfolio.view.excel;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.springframework.stereotype.Component;
 import ru.portfolio.portfolio.converter.PortfolioConverter;
+import ru.portfolio.portfolio.pojo.Portfolio;
 import ru.portfolio.portfolio.pojo.PortfolioPropertyType;
 import ru.portfolio.portfolio.repository.PortfolioPropertyRepository;
 import ru.portfolio.portfolio.repository.PortfolioRepository;
@@ -57,7 +56,7 @@ public class CashFlowExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected Table.Record getTotalRow() {
+    protected Table.Record getTotalRow(Portfolio portfolio) {
         Table.Record total = Table.newRecord();
         total.put(DATE, "Итого:");
         total.put(CASH_RUB, "=SUM(" +
@@ -65,7 +64,7 @@ public class CashFlowExcelTableView extends ExcelTableView {
                 CASH_RUB.getColumnIndex() + "100000)");
         total.put(LIQUIDATION_VALUE_RUB, portfolioPropertyRepository
                 .findFirstByPortfolioIdAndPropertyOrderByTimestampDesc(
-                        getPortfolio().getId(),
+                        portfolio.getId(),
                         PortfolioPropertyType.TOTAL_ASSETS.name())
                 .map(e -> BigDecimal.valueOf(Double.parseDouble(e.getValue())))
                 .orElse(BigDecimal.ZERO));
@@ -77,28 +76,20 @@ public class CashFlowExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, CellStyles styles) {
-        super.sheetPostCreate(sheet, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell = row.getCell(DAYS_COUNT.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getIntStyle());
-            }
-            cell = row.getCell(DESCRIPTION.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
-        }
-        for (Cell cell : sheet.getRow(1)) {
-            if (cell == null) continue;
-            if (cell.getColumnIndex() == DATE.ordinal()) {
-                cell.setCellStyle(styles.getTotalTextStyle());
-            } else if (cell.getColumnIndex() == DAYS_COUNT.ordinal()){
-                cell.setCellStyle(styles.getIntStyle());
+    protected CellStyle getCellStyle(int rowNum, TableHeader header, CellStyle style, CellStyles styles) {
+        if (rowNum == TOTAL_ROW_NUM) {
+            if (header == DATE) {
+                return styles.getTotalTextStyle();
+            } else if (header == DAYS_COUNT) {
+                return styles.getIntStyle();
             } else {
-                cell.setCellStyle(styles.getTotalRowStyle());
+                return styles.getTotalRowStyle();
             }
+        } else if (header == DAYS_COUNT) {
+            return styles.getIntStyle();
+        } else if (header == DESCRIPTION) {
+            return styles.getLeftAlignedTextStyle();
         }
+        return style;
     }
 }
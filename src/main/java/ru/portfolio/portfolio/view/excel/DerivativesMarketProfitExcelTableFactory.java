@@ -119,7 +119,7 @@ public class DerivativesMarketProfitExcelTableFactory implements TableFactory {
         total.put(DERIVATIVE_PROFIT_TOTAL, totalProfit);
         total.put(FORECAST_TAX, TAX_FORMULA);
         total.put(PROFIT, PROFIT_FORMULA);
-        contractProfit.addFirst(total);
+        contractProfit.add(0, total);
 
         return contractProfit;
     }
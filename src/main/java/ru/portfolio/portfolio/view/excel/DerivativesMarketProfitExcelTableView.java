@@ -18,12 +18,11 @@
 
 package ru.portfolio.portfolio.view.excel;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.springframework.stereotype.Component;
 import ru.portfolio.portfolio.converter.PortfolioConverter;
+import ru.portfolio.portfolio.pojo.Portfolio;
 import ru.portfolio.portfolio.repository.PortfolioRepository;
 import ru.portfolio.portfolio.view.Table;
 import ru.portfolio.portfolio.view.TableHeader;
@@ -47,7 +46,7 @@ public class DerivativesMarketProfitExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected Table.Record getTotalRow() {
+    protected Table.Record getTotalRow(Portfolio portfolio) {
         Table.Record totalRow = new Table.Record();
         totalRow.put(CONTRACT, "Итого:");
         totalRow.put(COUNT, getSumFormula(COUNT));
@@ -71,24 +70,18 @@ public class DerivativesMarketProfitExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, CellStyles styles) {
-        super.sheetPostCreate(sheet, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell = row.getCell(CONTRACT.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
-        }
-        for (Cell cell : sheet.getRow(1)) {
-            if (cell == null) continue;
-            if (cell.getColumnIndex() == CONTRACT.ordinal()) {
-                cell.setCellStyle(styles.getTotalTextStyle());
-            } else if (cell.getColumnIndex() == COUNT.ordinal()){
-                cell.setCellStyle(styles.getIntStyle());
+    protected CellStyle getCellStyle(int rowNum, TableHeader header, CellStyle style, CellStyles styles) {
+        if (rowNum == TOTAL_ROW_NUM) {
+            if (header == CONTRACT) {
+                return styles.getTotalTextStyle();
+            } else if (header == COUNT) {
+                return styles.getIntStyle();
             } else {
-                cell.setCellStyle(styles.getTotalRowStyle());
+                return styles.getTotalRowStyle();
             }
+        } else if (header == CONTRACT) {
+            return styles.getLeftAlignedTextStyle();
         }
+        return style;
     }
 }
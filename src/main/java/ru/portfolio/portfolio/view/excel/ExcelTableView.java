@@ -18,13 +18,9 @@
 
 package ru.portfolio.portfolio.view.excel;
 
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import ru.portfolio.portfolio.converter.PortfolioConverter;
-import ru.portfolio.portfolio.entity.PortfolioEntity;
 import ru.portfolio.portfolio.pojo.Portfolio;
 import ru.portfolio.portfolio.repository.PortfolioRepository;
 import ru.portfolio.portfolio.view.Table;
@@ -33,91 +29,99 @@ import ru.portfolio.portfolio.view.TableHeader;
 
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import static ru.portfolio.portfolio.view.excel.StockMarketProfitExcelTableHeader.ROW_NUM_PLACE_HOLDER;
 
 @RequiredArgsConstructor
 public abstract class ExcelTableView {
+    protected static final int TOTAL_ROW_NUM = 1;
     protected final PortfolioRepository portfolioRepository;
     protected final TableFactory tableFactory;
     protected final PortfolioConverter portfolioConverter;
-    @Getter
-    @Setter
-    private Portfolio portfolio;
-
-    public void writeTo(XSSFWorkbook book, CellStyles styles, UnaryOperator<String> sheetNameCreator) {
-        for (PortfolioEntity entity : getPortfolios()) {
-            Portfolio portfolio = portfolioConverter.fromEntity(entity);
-            setPortfolio(portfolio);
-            writeTo(book, styles, sheetNameCreator, portfolio);
-        }
+
+    public List<Portfolio> getPortfolios() {
+        // TODO select by user
+        return portfolioRepository.findAll()
+                .stream()
+                .map(portfolioConverter::fromEntity)
+                .collect(Collectors.toList());
     }
 
-    protected void writeTo(XSSFWorkbook book, CellStyles styles, UnaryOperator<String> sheetNameCreator, Portfolio portfolio) {
+    /**
+     * Creates portfolio tables with total rows. Doesn't use workbook, so may be called concurrently.
+     *
+     * @return sheet name -> table, in sheet order
+     */
+    public Map<String, Table> createTables(Portfolio portfolio, UnaryOperator<String> sheetNameCreator) {
         Table table = getTable(portfolio);
-        if (!table.isEmpty()) {
-            Sheet sheet = book.createSheet(sheetNameCreator.apply(portfolio.getId()));
-            writeTable(table, sheet, styles);
+        if (table.isEmpty()) {
+            return Collections.emptyMap();
         }
+        return Collections.singletonMap(sheetNameCreator.apply(portfolio.getId()), addTotalRow(table, portfolio));
     }
 
-    protected List<PortfolioEntity> getPortfolios() {
-        // TODO select by user
-        return portfolioRepository.findAll();
+    public void writeTables(Workbook book, CellStyles styles, Map<String, Table> tables) {
+        tables.forEach((sheetName, table) -> writeTable(table, book.createSheet(sheetName), styles));
     }
 
     protected Table getTable(Portfolio portfolio) {
         return tableFactory.create(portfolio);
     }
 
+    protected Table addTotalRow(Table table, Portfolio portfolio) {
+        Table.Record totalRow = getTotalRow(portfolio);
+        if (totalRow != null && !totalRow.isEmpty()) {
+            table.add(0, totalRow);
+        }
+        return table;
+    }
+
     protected void writeTable(Table table,
                               Sheet sheet,
                               CellStyles styles) {
         if (table.isEmpty()) return;
         Class<? extends TableHeader> headerType = getHeaderType(table);
+        TableHeader[] headers = headerType.getEnumConstants();
         writeHeader(sheet, headerType, styles.getHeaderStyle());
-        Table.Record totalRow = getTotalRow();
-        if (totalRow != null && !totalRow.isEmpty()) {
-            table.addFirst(totalRow);
-        }
         int rowNum = 0;
-        for (Map<? extends TableHeader, Object> transactionProfit : table) {
+        for (Table.Record record : table) {
             Row row = sheet.createRow(++rowNum);
-            for (TableHeader header : headerType.getEnumConstants()) {
-                Object value = transactionProfit.get(header);
+            for (TableHeader header : headers) {
+                Object value = record.get(header);
                 if (value == null) {
                     continue;
                 }
                 Cell cell = row.createCell(header.ordinal());
+                CellStyle style = styles.getDefaultStyle();
                 if (value instanceof String) {
                     String string = (String) value;
                     if (string.startsWith("=")) {
                         cell.setCellFormula(string.substring(1)
                                 .replace(ROW_NUM_PLACE_HOLDER, String.valueOf(rowNum + 1)));
-                        cell.setCellType(CellType.FORMULA);
-                        cell.setCellStyle(styles.getMoneyStyle());
+                        style = styles.getMoneyStyle();
                     } else {
                         cell.setCellValue(string);
-                        cell.setCellStyle(styles.getDefaultStyle());
                     }
                 } else if (value instanceof Number) {
                     cell.setCellValue(((Number) value).doubleValue());
                     if (value instanceof Integer || value instanceof Long
                             || value instanceof Short || value instanceof Byte) {
-                        cell.setCellStyle(styles.getIntStyle());
+                        style = styles.getIntStyle();
                     } else {
-                        cell.setCellStyle(styles.getMoneyStyle());
+                        style = styles.getMoneyStyle();
                     }
                 } else if (value instanceof Instant) {
                     cell.setCellValue(((Instant) value).atZone(ZoneId.systemDefault()).toLocalDateTime());
-                    cell.setCellStyle(styles.getDateStyle());
+                    style = styles.getDateStyle();
                 } else if (value instanceof Boolean) {
                     cell.setCellValue((Boolean) value);
-                    cell.setCellStyle(styles.getDefaultStyle());
                 }
+                cell.setCellStyle(getCellStyle(rowNum, header, style, styles));
             }
         }
         sheetPostCreate(sheet, styles);
@@ -126,10 +130,7 @@ public abstract class ExcelTableView {
     private Class<? extends TableHeader> getHeaderType(Table table) {
         for (Table.Record record : table) {
             if (record.isEmpty()) continue;
-            return record.keySet()
-                    .iterator()
-                    .next()
-                    .getClass();
+            return record.getHeaderType();
         }
         return null;
     }
@@ -146,10 +147,21 @@ public abstract class ExcelTableView {
         sheet.createFreezePane(0, 1);
     }
 
-    protected Table.Record getTotalRow() {
+    protected Table.Record getTotalRow(Portfolio portfolio) {
         return new Table.Record();
     }
 
+    /**
+     * Rows are flushed to disk while writing to streaming workbook, so cell style should be chosen before
+     * the row is written, not in {@link #sheetPostCreate(Sheet, CellStyles)}.
+     *
+     * @param rowNum {@link #TOTAL_ROW_NUM} for total row
+     * @param style style selected by cell value type
+     */
+    protected CellStyle getCellStyle(int rowNum, TableHeader header, CellStyle style, CellStyles styles) {
+        return style;
+    }
+
     protected void sheetPostCreate(Sheet sheet, CellStyles styles) {
         sheet.setZoom(93); // show all columns for 24 inch monitor for securities sheet
     }
@@ -18,28 +18,96 @@
 
 package ru.portfolio.portfolio.view.excel;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.portfolio.portfolio.pojo.Portfolio;
+import ru.portfolio.portfolio.view.Table;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
 
 @Component
-@RequiredArgsConstructor
 public class ExcelView {
+    // each thread holds DB connection while creating tables
+    private static final int TABLE_CREATOR_THREADS = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
     private final StockMarketProfitExcelTableView stockMarketProfitExcelTableView;
     private final DerivativesMarketProfitExcelTableView derivativesMarketProfitExcelTableView;
     private final ForeignPortfolioPaymentTableView foreignPortfolioPaymentTableView;
     private final CashFlowExcelTableView cashFlowExcelTableView;
     private final TaxExcelTableView taxExcelTableView;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService tableCreatorExecutor = Executors.newFixedThreadPool(TABLE_CREATOR_THREADS);
+
+    public ExcelView(StockMarketProfitExcelTableView stockMarketProfitExcelTableView,
+                     DerivativesMarketProfitExcelTableView derivativesMarketProfitExcelTableView,
+                     ForeignPortfolioPaymentTableView foreignPortfolioPaymentTableView,
+                     CashFlowExcelTableView cashFlowExcelTableView,
+                     TaxExcelTableView taxExcelTableView,
+                     PlatformTransactionManager transactionManager) {
+        this.stockMarketProfitExcelTableView = stockMarketProfitExcelTableView;
+        this.derivativesMarketProfitExcelTableView = derivativesMarketProfitExcelTableView;
+        this.foreignPortfolioPaymentTableView = foreignPortfolioPaymentTableView;
+        this.cashFlowExcelTableView = cashFlowExcelTableView;
+        this.taxExcelTableView = taxExcelTableView;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
 
-    public void writeTo(XSSFWorkbook book) {
-        CellStyles styles = new CellStyles(book);
-        stockMarketProfitExcelTableView.writeTo(book, styles, portfolio -> portfolio + " (фондовый)");
-        derivativesMarketProfitExcelTableView.writeTo(book, styles, portfolio -> portfolio + " (срочный)");
-        foreignPortfolioPaymentTableView.writeTo(book, styles, portfolio -> portfolio + " (внешние выплаты)");
-        cashFlowExcelTableView.writeTo(book, styles, portfolio -> "Доходность (" + portfolio + ")");
-        taxExcelTableView.writeTo(book, styles, portfolio -> "Налог (" + portfolio + ")");
+    /**
+     * Tables of all portfolios and views are created concurrently, sheets are written in views and portfolios order.
+     * Streaming workbook keeps only last rows of sheet in memory, others are flushed to temp files.
+     */
+    public void writeTo(SXSSFWorkbook book) throws InterruptedException {
+        List<SheetsCreation> sheets = new ArrayList<>();
+        try {
+            createTables(sheets, stockMarketProfitExcelTableView, portfolio -> portfolio + " (фондовый)");
+            createTables(sheets, derivativesMarketProfitExcelTableView, portfolio -> portfolio + " (срочный)");
+            createTables(sheets, foreignPortfolioPaymentTableView, portfolio -> portfolio + " (внешние выплаты)");
+            createTables(sheets, cashFlowExcelTableView, portfolio -> "Доходность (" + portfolio + ")");
+            createTables(sheets, taxExcelTableView, portfolio -> "Налог (" + portfolio + ")");
+            CellStyles styles = new CellStyles(book.getXSSFWorkbook());
+            for (SheetsCreation sheet : sheets) {
+                sheet.getView().writeTables(book, styles, sheet.getTables().get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+        } finally {
+            sheets.forEach(sheet -> sheet.getTables().cancel(true));
+        }
         if (book.getNumberOfSheets() == 0) {
             book.createSheet("пустой отчет");
         }
     }
+
+    private void createTables(List<SheetsCreation> sheets, ExcelTableView view, UnaryOperator<String> sheetNameCreator) {
+        for (Portfolio portfolio : view.getPortfolios()) {
+            Future<Map<String, Table>> tables = tableCreatorExecutor.submit(() ->
+                    transactionTemplate.execute(status -> view.createTables(portfolio, sheetNameCreator)));
+            sheets.add(new SheetsCreation(view, tables));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tableCreatorExecutor.shutdownNow();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class SheetsCreation {
+        private final ExcelTableView view;
+        private final Future<Map<String, Table>> tables;
+    }
 }
@@ -18,12 +18,11 @@
 
 package ru.portfolio.portfolio.view.excel;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.springframework.stereotype.Component;
 import ru.portfolio.portfolio.converter.PortfolioConverter;
+import ru.portfolio.portfolio.pojo.Portfolio;
 import ru.portfolio.portfolio.repository.PortfolioRepository;
 import ru.portfolio.portfolio.view.Table;
 import ru.portfolio.portfolio.view.TableHeader;
@@ -46,7 +45,7 @@ public class ForeignPortfolioPaymentTableView extends ExcelTableView {
     }
 
     @Override
-    protected Table.Record getTotalRow() {
+    protected Table.Record getTotalRow(Portfolio portfolio) {
         Table.Record total = Table.newRecord();
         total.put(DATE, "Итого:");
         total.put(CASH_RUB, "=SUM(" +
@@ -56,22 +55,16 @@ public class ForeignPortfolioPaymentTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, CellStyles styles) {
-        super.sheetPostCreate(sheet, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell = row.getCell(DESCRIPTION.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
-        }
-        for (Cell cell : sheet.getRow(1)) {
-            if (cell == null) continue;
-            if (cell.getColumnIndex() == DATE.ordinal()) {
-                cell.setCellStyle(styles.getTotalTextStyle());
+    protected CellStyle getCellStyle(int rowNum, TableHeader header, CellStyle style, CellStyles styles) {
+        if (rowNum == TOTAL_ROW_NUM) {
+            if (header == DATE) {
+                return styles.getTotalTextStyle();
             } else {
-                cell.setCellStyle(styles.getTotalRowStyle());
+                return styles.getTotalRowStyle();
             }
+        } else if (header == DESCRIPTION) {
+            return styles.getLeftAlignedTextStyle();
         }
+        return style;
     }
 }
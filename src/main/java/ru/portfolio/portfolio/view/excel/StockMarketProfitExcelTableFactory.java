@@ -18,44 +18,79 @@
 
 package ru.portfolio.portfolio.view.excel;
 
-import lombok.RequiredArgsConstructor;
+import com.google.common.cache.Cache;
+import lombok.Getter;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.portfolio.portfolio.cache.CacheFactory;
 import ru.portfolio.portfolio.converter.SecurityConverter;
 import ru.portfolio.portfolio.converter.SecurityEventCashFlowConverter;
-import ru.portfolio.portfolio.converter.TransactionConverter;
+import ru.portfolio.portfolio.entity.PositionsSnapshotEntity;
 import ru.portfolio.portfolio.entity.SecurityEntity;
 import ru.portfolio.portfolio.entity.SecurityEventCashFlowEntity;
 import ru.portfolio.portfolio.entity.TransactionCashFlowEntity;
+import ru.portfolio.portfolio.parser.TransactionsStoredEvent;
 import ru.portfolio.portfolio.pojo.*;
+import ru.portfolio.portfolio.repository.PositionsSnapshotRepository;
 import ru.portfolio.portfolio.repository.SecurityEventCashFlowRepository;
 import ru.portfolio.portfolio.repository.SecurityRepository;
 import ru.portfolio.portfolio.repository.TransactionCashFlowRepository;
 import ru.portfolio.portfolio.repository.TransactionRepository;
+import ru.portfolio.portfolio.repository.TransactionRepository.SecurityTransactionsSummary;
 import ru.portfolio.portfolio.view.*;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static ru.portfolio.portfolio.view.excel.StockMarketProfitExcelTableHeader.*;
 
 @Component
-@RequiredArgsConstructor
 public class StockMarketProfitExcelTableFactory implements TableFactory {
+    private static final List<Integer> SECURITY_EVENT_TYPES = Arrays.asList(
+            CashFlowType.COUPON.getId(),
+            CashFlowType.AMORTIZATION.getId(),
+            CashFlowType.DIVIDEND.getId(),
+            CashFlowType.TAX.getId(),
+            CashFlowType.REDEMPTION.getId());
     // isin -> security price currency
-    private final Map<String, String> securityCurrencies = new ConcurrentHashMap<>();
+    private final Cache<String, String> securityCurrencies;
     private final TransactionRepository transactionRepository;
     private final SecurityRepository securityRepository;
     private final TransactionCashFlowRepository transactionCashFlowRepository;
-    private final TransactionConverter transactionConverter;
     private final SecurityConverter securityConverter;
     private final PaidInterestFactory paidInterestFactory;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final SecurityEventCashFlowConverter securityEventCashFlowConverter;
     private final ForeignExchangeRateService foreignExchangeRateService;
+    private final PositionsSnapshotRepository positionsSnapshotRepository;
+    private final PositionsSnapshotService positionsSnapshotService;
+
+    public StockMarketProfitExcelTableFactory(TransactionRepository transactionRepository,
+                                              SecurityRepository securityRepository,
+                                              TransactionCashFlowRepository transactionCashFlowRepository,
+                                              SecurityConverter securityConverter,
+                                              PaidInterestFactory paidInterestFactory,
+                                              SecurityEventCashFlowRepository securityEventCashFlowRepository,
+                                              SecurityEventCashFlowConverter securityEventCashFlowConverter,
+                                              ForeignExchangeRateService foreignExchangeRateService,
+                                              PositionsSnapshotRepository positionsSnapshotRepository,
+                                              PositionsSnapshotService positionsSnapshotService,
+                                              CacheFactory cacheFactory) {
+        this.transactionRepository = transactionRepository;
+        this.securityRepository = securityRepository;
+        this.transactionCashFlowRepository = transactionCashFlowRepository;
+        this.securityConverter = securityConverter;
+        this.paidInterestFactory = paidInterestFactory;
+        this.securityEventCashFlowRepository = securityEventCashFlowRepository;
+        this.securityEventCashFlowConverter = securityEventCashFlowConverter;
+        this.foreignExchangeRateService = foreignExchangeRateService;
+        this.positionsSnapshotRepository = positionsSnapshotRepository;
+        this.positionsSnapshotService = positionsSnapshotService;
+        this.securityCurrencies = cacheFactory.create("securityCurrencies", 10_000);
+    }
 
     public Table create(Portfolio portfolio) {
         return create(portfolio, getSecuritiesIsin(portfolio));
@@ -68,18 +103,23 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
     public Table create(Portfolio portfolio, Collection<String> securitiesIsin) {
         Table openPositionsProfit = new Table();
         Table closedPositionsProfit = new Table();
+        PortfolioCashFlows cashFlows = new PortfolioCashFlows(portfolio);
+        Map<String, SecurityEntity> securities = securityRepository.findAllById(new HashSet<>(securitiesIsin))
+                .stream()
+                .collect(Collectors.toMap(SecurityEntity::getIsin, Function.identity()));
         for (String isin : securitiesIsin) {
-            Optional<SecurityEntity> securityEntity = securityRepository.findByIsin(isin);
-            if (securityEntity.isPresent()) {
-                Security security = securityConverter.fromEntity(securityEntity.get());
-                Positions positions = getPositions(portfolio, security);
-                PaidInterest paidInterest = paidInterestFactory.create(portfolio.getId(), security, positions);
+            SecurityEntity securityEntity = securities.get(isin);
+            if (securityEntity != null) {
+                Security security = securityConverter.fromEntity(securityEntity);
+                Positions positions = getPositions(cashFlows, security);
+                PaidInterest paidInterest = paidInterestFactory.create(positions,
+                        cashFlows.getSecurityEventCashFlows(isin));
                 openPositionsProfit.addAll(getPositionProfit(security, positions.getOpenedPositions(),
-                        paidInterest, this::getOpenedPositionProfit));
+                        paidInterest, p -> getOpenedPositionProfit(p, cashFlows)));
                 closedPositionsProfit.addAll(getPositionProfit(security, positions.getClosedPositions(),
-                        paidInterest, this::getClosedPositionProfit));
+                        paidInterest, p -> getClosedPositionProfit(p, cashFlows)));
                 openPositionsProfit.addAll(getPositionProfit(security, paidInterest.getFictitiousPositions(),
-                        paidInterest, this::getOpenedPositionProfit));
+                        paidInterest, p -> getOpenedPositionProfit(p, cashFlows)));
             }
         }
         Table profit = new Table();
@@ -102,25 +142,17 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
         return securities;
     }
 
-    private Positions getPositions(Portfolio portfolio, Security security) {
-        Deque<Transaction> transactions = transactionRepository
-                .findBySecurityIsinAndPkPortfolioOrderByTimestampAscPkIdAsc(security.getIsin(), portfolio.getId())
-                .stream()
-                .map(transactionConverter::fromEntity)
-                .collect(Collectors.toCollection(LinkedList::new));
-        Deque<SecurityEventCashFlow> redemption = getRedemption(portfolio, security);
-        return new Positions(transactions, redemption);
-    }
-
-    private Deque<SecurityEventCashFlow> getRedemption(Portfolio portfolio, Security securityEntity) {
-        return securityEventCashFlowRepository
-                .findByPortfolioIdAndSecurityIsinAndCashFlowTypeIdOrderByTimestampAsc(
-                        portfolio.getId(),
-                        securityEntity.getIsin(),
-                        CashFlowType.REDEMPTION.getId())
+    private Positions getPositions(PortfolioCashFlows cashFlows, Security security) {
+        List<SecurityEventCashFlow> redemption = cashFlows.getRedemptions(security.getIsin())
                 .stream()
                 .map(securityEventCashFlowConverter::fromEntity)
-                .collect(Collectors.toCollection(LinkedList::new));
+                .collect(Collectors.toList());
+        return positionsSnapshotService.getPositions(
+                cashFlows.getPortfolio().getId(),
+                security.getIsin(),
+                cashFlows.getPositionsSnapshot(security.getIsin()),
+                cashFlows.getTransactionsSummary(security.getIsin()),
+                redemption);
     }
 
     private <T extends Position> Table getPositionProfit(Security security,
@@ -139,22 +171,22 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
         return rows;
     }
 
-    private Table.Record getOpenedPositionProfit(OpenedPosition position) {
+    private Table.Record getOpenedPositionProfit(OpenedPosition position, PortfolioCashFlows cashFlows) {
         Table.Record row = new Table.Record();
         Transaction transaction = position.getOpenTransaction();
         row.put(OPEN_DATE, transaction.getTimestamp());
         row.put(COUNT, Math.abs(position.getCount()) * Integer.signum(transaction.getCount()));
-        row.put(OPEN_PRICE, getTransactionCashFlow(transaction, CashFlowType.PRICE, 1d / transaction.getCount()));
+        row.put(OPEN_PRICE, getTransactionCashFlow(transaction, CashFlowType.PRICE, 1d / transaction.getCount(), cashFlows));
         double multipier = Math.abs(1d * position.getCount() / transaction.getCount());
-        row.put(OPEN_AMOUNT, getTransactionCashFlow(transaction, CashFlowType.PRICE, multipier));
-        row.put(OPEN_ACCRUED_INTEREST, getTransactionCashFlow(transaction, CashFlowType.ACCRUED_INTEREST, multipier));
-        row.put(OPEN_COMMISSION, getTransactionCashFlow(transaction, CashFlowType.COMMISSION, multipier));
+        row.put(OPEN_AMOUNT, getTransactionCashFlow(transaction, CashFlowType.PRICE, multipier, cashFlows));
+        row.put(OPEN_ACCRUED_INTEREST, getTransactionCashFlow(transaction, CashFlowType.ACCRUED_INTEREST, multipier, cashFlows));
+        row.put(OPEN_COMMISSION, getTransactionCashFlow(transaction, CashFlowType.COMMISSION, multipier, cashFlows));
         return row;
     }
 
-    private Table.Record getClosedPositionProfit(ClosedPosition position) {
+    private Table.Record getClosedPositionProfit(ClosedPosition position, PortfolioCashFlows cashFlows) {
         // open transaction info
-        Table.Record row = new Table.Record(getOpenedPositionProfit(position));
+        Table.Record row = new Table.Record(getOpenedPositionProfit(position, cashFlows));
         // close transaction info
         Transaction transaction = position.getCloseTransaction();
         double multipier = Math.abs(1d * position.getCount() / transaction.getCount());
@@ -162,18 +194,18 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
         BigDecimal closeAmount;
         switch (position.getClosingEvent()) {
             case PRICE:
-                closeAmount = getTransactionCashFlow(transaction, CashFlowType.PRICE, multipier);
+                closeAmount = getTransactionCashFlow(transaction, CashFlowType.PRICE, multipier, cashFlows);
                 break;
             case REDEMPTION:
-                closeAmount = getRedemptionCashFlow(transaction.getPortfolio(), transaction.getIsin(), multipier);
+                closeAmount = getRedemptionCashFlow(transaction.getIsin(), multipier, cashFlows);
                 break;
             default:
                 throw new IllegalArgumentException("ЦБ " + transaction.getIsin() +
                         " не может быть закрыта событием типа " + position.getClosingEvent());
         }
         row.put(CLOSE_AMOUNT, closeAmount);
-        row.put(CLOSE_ACCRUED_INTEREST, getTransactionCashFlow(transaction, CashFlowType.ACCRUED_INTEREST, multipier));
-        row.put(CLOSE_COMMISSION, getTransactionCashFlow(transaction, CashFlowType.COMMISSION, multipier));
+        row.put(CLOSE_ACCRUED_INTEREST, getTransactionCashFlow(transaction, CashFlowType.ACCRUED_INTEREST, multipier, cashFlows));
+        row.put(CLOSE_COMMISSION, getTransactionCashFlow(transaction, CashFlowType.COMMISSION, multipier, cashFlows));
         boolean isLongPosition = isLongPosition(position);
         row.put(FORECAST_TAX, getForecastTax(isLongPosition));
         row.put(PROFIT, getClosedPositionProfit(isLongPosition));
@@ -195,29 +227,22 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
         return info;
     }
 
-    private BigDecimal getTransactionCashFlow(Transaction transaction, CashFlowType type, double multiplier) {
+    private BigDecimal getTransactionCashFlow(Transaction transaction, CashFlowType type, double multiplier,
+                                              PortfolioCashFlows cashFlows) {
         if (transaction.getId() == null) {
             return null;
         }
-        return transactionCashFlowRepository
-                .findByPkPortfolioAndPkTransactionIdAndPkType(
-                        transaction.getPortfolio(),
-                        transaction.getId(),
-                        type.getId())
+        return cashFlows.getTransactionCashFlow(transaction.getId(), type)
                 .map(cash -> cash.getValue()
-                        .multiply(exchangeRateToSecurityCurrency(cash.getCurrency(), transaction))
+                        .multiply(exchangeRateToSecurityCurrency(cash.getCurrency(), transaction, cashFlows))
                         .multiply(BigDecimal.valueOf(multiplier))
                         .abs()
                         .setScale(6, RoundingMode.HALF_UP))
                 .orElse(null);
     }
 
-    private BigDecimal getRedemptionCashFlow(String portfolio, String isin, double multiplier) {
-        List<SecurityEventCashFlowEntity> cashFlows = securityEventCashFlowRepository
-                .findByPortfolioIdAndSecurityIsinAndCashFlowTypeIdOrderByTimestampAsc(
-                        portfolio,
-                        isin,
-                        CashFlowType.REDEMPTION.getId());
+    private BigDecimal getRedemptionCashFlow(String isin, double multiplier, PortfolioCashFlows portfolioCashFlows) {
+        List<SecurityEventCashFlowEntity> cashFlows = portfolioCashFlows.getRedemptions(isin);
         if (cashFlows.isEmpty()) {
             return null;
         } else if (cashFlows.size() != 1) {
@@ -231,8 +256,9 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
                 .setScale(6, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal exchangeRateToSecurityCurrency(String currency, Transaction transaction) {
-        String securityCurrency = getSecurityCurrency(transaction);
+    private BigDecimal exchangeRateToSecurityCurrency(String currency, Transaction transaction,
+                                                      PortfolioCashFlows cashFlows) {
+        String securityCurrency = getSecurityCurrency(transaction, cashFlows);
         return currency.equalsIgnoreCase(securityCurrency) ?
                 BigDecimal.ONE :
                 foreignExchangeRateService.getExchangeRate(currency, securityCurrency);
@@ -241,22 +267,29 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
     /**
      * @return security price currency
      */
-    private String getSecurityCurrency(Transaction transaction) {
-        String currency = securityCurrencies.get(transaction.getIsin());
+    private String getSecurityCurrency(Transaction transaction, PortfolioCashFlows cashFlows) {
+        String currency = securityCurrencies.getIfPresent(transaction.getIsin());
         if (currency != null) {
             return currency;
         }
-        currency = transactionCashFlowRepository
-                .findByPkPortfolioAndPkTransactionIdAndPkType(
-                        transaction.getPortfolio(),
-                        transaction.getId(),
-                        CashFlowType.PRICE.getId())
+        currency = cashFlows.getTransactionCashFlow(transaction.getId(), CashFlowType.PRICE)
                 .map(TransactionCashFlowEntity::getCurrency)
                 .orElseThrow();
         securityCurrencies.put(transaction.getIsin(), currency);
         return currency;
     }
 
+    /**
+     * Drops price currencies of securities traded by committed report
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsStored(TransactionsStoredEvent event) {
+        securityCurrencies.invalidateAll(event.getTransactions()
+                .stream()
+                .map(Transaction::getIsin)
+                .collect(Collectors.toSet()));
+    }
+
     public static <T extends Position> String convertPaidInterestToExcelFormula(List<SecurityEventCashFlow> pays) {
         if (pays == null || pays.isEmpty()) {
             return null;
@@ -303,4 +336,67 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
                 "/(" + open + "+" + openCommission + ")" +
                 "*" + multiplicator;
     }
+
+    /**
+     * Portfolio transaction cash flows and security events loaded by a few queries and grouped by ISIN.
+     * Security transactions are not loaded, if positions snapshot is actual.
+     */
+    private class PortfolioCashFlows {
+        @Getter
+        private final Portfolio portfolio;
+        private final Map<String, SecurityTransactionsSummary> transactionsSummaries;
+        // transaction id -> cash flows
+        private final Map<Long, List<TransactionCashFlowEntity>> transactionCashFlows;
+        private final Map<String, List<SecurityEventCashFlowEntity>> securityEventCashFlows;
+        private final Map<String, PositionsSnapshotEntity> positionsSnapshots;
+
+        PortfolioCashFlows(Portfolio portfolio) {
+            this.portfolio = portfolio;
+            this.transactionsSummaries = transactionRepository
+                    .findSecurityTransactionsSummaries(portfolio.getId())
+                    .stream()
+                    .collect(Collectors.toMap(SecurityTransactionsSummary::getIsin, Function.identity()));
+            this.transactionCashFlows = transactionCashFlowRepository
+                    .findByPkPortfolio(portfolio.getId())
+                    .stream()
+                    .collect(Collectors.groupingBy(cash -> cash.getPk().getTransactionId()));
+            this.securityEventCashFlows = securityEventCashFlowRepository
+                    .findByPortfolioIdAndCashFlowTypeIdInOrderByTimestampAsc(portfolio.getId(), SECURITY_EVENT_TYPES)
+                    .stream()
+                    .collect(Collectors.groupingBy(cash -> cash.getSecurity().getIsin()));
+            this.positionsSnapshots = positionsSnapshotRepository
+                    .findByPkPortfolio(portfolio.getId())
+                    .stream()
+                    .collect(Collectors.toMap(snapshot -> snapshot.getPk().getIsin(), Function.identity()));
+        }
+
+        SecurityTransactionsSummary getTransactionsSummary(String isin) {
+            return transactionsSummaries.get(isin);
+        }
+
+        Optional<TransactionCashFlowEntity> getTransactionCashFlow(long transactionId, CashFlowType type) {
+            return transactionCashFlows.getOrDefault(transactionId, Collections.emptyList())
+                    .stream()
+                    .filter(cash -> cash.getPk().getType() == type.getId())
+                    .findAny();
+        }
+
+        /**
+         * @return coupons, amortizations, dividends, taxes and redemptions ordered by timestamp
+         */
+        List<SecurityEventCashFlowEntity> getSecurityEventCashFlows(String isin) {
+            return securityEventCashFlows.getOrDefault(isin, Collections.emptyList());
+        }
+
+        PositionsSnapshotEntity getPositionsSnapshot(String isin) {
+            return positionsSnapshots.get(isin);
+        }
+
+        List<SecurityEventCashFlowEntity> getRedemptions(String isin) {
+            return getSecurityEventCashFlows(isin)
+                    .stream()
+                    .filter(cash -> cash.getCashFlowType().getId() == CashFlowType.REDEMPTION.getId())
+                    .collect(Collectors.toList());
+        }
+    }
 }
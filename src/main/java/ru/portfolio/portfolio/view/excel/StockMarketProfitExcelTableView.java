@@ -18,11 +18,8 @@
 
 package ru.portfolio.portfolio.view.excel;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
 import ru.portfolio.portfolio.converter.PortfolioConverter;
 import ru.portfolio.portfolio.pojo.CashFlowType;
@@ -32,7 +29,9 @@ import ru.portfolio.portfolio.repository.TransactionCashFlowRepository;
 import ru.portfolio.portfolio.view.Table;
 import ru.portfolio.portfolio.view.TableHeader;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.UnaryOperator;
 
 import static ru.portfolio.portfolio.view.excel.StockMarketProfitExcelTableHeader.*;
@@ -51,16 +50,17 @@ public class StockMarketProfitExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void writeTo(XSSFWorkbook book, CellStyles styles, UnaryOperator<String> sheetNameCreator, Portfolio portfolio) {
+    public Map<String, Table> createTables(Portfolio portfolio, UnaryOperator<String> sheetNameCreator) {
         List<String> currencies = transactionCashFlowRepository
                 .findDistinctCurrencyByPkPortfolioAndPkType(portfolio.getId(), CashFlowType.PRICE);
+        Map<String, Table> tables = new LinkedHashMap<>();
         for (String currency : currencies) {
             Table table = tableFactory.create(portfolio, currency);
             if (!table.isEmpty()) {
-                Sheet sheet = book.createSheet(sheetNameCreator.apply(portfolio.getId()) + " " + currency);
-                writeTable(table, sheet, styles);
+                tables.put(sheetNameCreator.apply(portfolio.getId()) + " " + currency, addTotalRow(table, portfolio));
             }
         }
+        return tables;
     }
 
     @Override
@@ -72,7 +72,7 @@ public class StockMarketProfitExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected Table.Record getTotalRow() {
+    protected Table.Record getTotalRow(Portfolio portfolio) {
         Table.Record totalRow = new Table.Record();
         for (StockMarketProfitExcelTableHeader column : StockMarketProfitExcelTableHeader.values()) {
             totalRow.put(column, "=SUM(" +
@@ -91,24 +91,18 @@ public class StockMarketProfitExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, CellStyles styles) {
-        super.sheetPostCreate(sheet, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell = row.getCell(SECURITY.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
-        }
-        for (Cell cell : sheet.getRow(1)) {
-            if (cell == null) continue;
-            if (cell.getColumnIndex() == SECURITY.ordinal()) {
-                cell.setCellStyle(styles.getTotalTextStyle());
-            } else if (cell.getColumnIndex() == COUNT.ordinal()){
-                cell.setCellStyle(styles.getIntStyle());
+    protected CellStyle getCellStyle(int rowNum, TableHeader header, CellStyle style, CellStyles styles) {
+        if (rowNum == TOTAL_ROW_NUM) {
+            if (header == SECURITY) {
+                return styles.getTotalTextStyle();
+            } else if (header == COUNT) {
+                return styles.getIntStyle();
             } else {
-                cell.setCellStyle(styles.getTotalRowStyle());
+                return styles.getTotalRowStyle();
             }
+        } else if (header == SECURITY) {
+            return styles.getLeftAlignedTextStyle();
         }
+        return style;
     }
 }
@@ -97,6 +97,37 @@ CREATE TABLE IF NOT EXISTS `portfolio_property` (
 
 -- Экспортируемые данные не выделены.
 
+-- Дамп структуры для таблица portfolio.positions_snapshot
+CREATE TABLE IF NOT EXISTS `positions_snapshot` (
+  `portfolio` varchar(32) NOT NULL COMMENT 'Портфель (номер брокерского счета)',
+  `isin` varchar(64) NOT NULL COMMENT 'Ценная бумага',
+  `transaction_count` int(10) unsigned NOT NULL COMMENT 'Количество учтенных сделок',
+  `last_transaction_timestamp` timestamp NULL DEFAULT NULL COMMENT 'Время последней учтенной сделки',
+  `redemption_count` int(10) unsigned NOT NULL COMMENT 'Количество учтенных погашений номинала',
+  `positions` longtext NOT NULL COMMENT 'Открытые и закрытые позиции в формате JSON',
+  PRIMARY KEY (`portfolio`,`isin`),
+  CONSTRAINT `positions_snapshot_portfolio_fkey` FOREIGN KEY (`portfolio`) REFERENCES `portfolio` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COMMENT='Рассчитанные позиции по ценной бумаге';
+
+-- Экспортируемые данные не выделены.
+
+-- Дамп структуры для таблица portfolio.report_digest
+CREATE TABLE IF NOT EXISTS `report_digest` (
+  `sha256` char(64) NOT NULL COMMENT 'SHA-256 содержимого файла отчета',
+  `portfolio` varchar(32) NOT NULL COMMENT 'Портфель (номер брокерского счета)',
+  `report_date` timestamp NULL DEFAULT NULL COMMENT 'Дата отчета',
+  `file_name` varchar(256) DEFAULT NULL COMMENT 'Имя загруженного файла',
+  `rows_parsed` int(10) unsigned NOT NULL COMMENT 'Количество записей в отчете',
+  `rows_stored` int(10) unsigned NOT NULL COMMENT 'Количество сохраненных записей',
+  `duplicates_skipped` int(10) unsigned NOT NULL COMMENT 'Количество записей, загруженных ранее',
+  `imported` timestamp NOT NULL DEFAULT current_timestamp() COMMENT 'Время загрузки',
+  PRIMARY KEY (`sha256`),
+  KEY `report_digest_portfolio_ix` (`portfolio`),
+  CONSTRAINT `report_digest_portfolio_fkey` FOREIGN KEY (`portfolio`) REFERENCES `portfolio` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COMMENT='Загруженные отчеты';
+
+-- Экспортируемые данные не выделены.
+
 -- Дамп структуры для таблица portfolio.security
 CREATE TABLE IF NOT EXISTS `security` (
   `isin` varchar(64) NOT NULL COMMENT 'ISIN код ценной бумаги',
@@ -0,0 +1,86 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.BiPredicate;
+
+import static org.testng.Assert.assertEquals;
+
+public class ExcelTableHelperTest {
+    // same as ExcelTableHelper.CELL_STRING_EQUALS, but sheet index is not used
+    private static final BiPredicate<String, Object> NOT_INDEXED_STRING_EQUALS = (cell, value) ->
+            ExcelTableHelper.CELL_STRING_EQUALS.test(cell, value);
+    private ReportPage page;
+
+    @BeforeClass
+    void createPage() throws IOException {
+        try (XSSFWorkbook book = new XSSFWorkbook()) {
+            Sheet sheet = book.createSheet();
+            String[][] values = {
+                    {"Отчет брокера", "", "Итого"},
+                    {"", " Движение денежных средств ", "итого по валюте"},
+                    {"Итоговая сумма", "Движение ДС", "RUB"},
+                    {"", "", "ИТОГО"}};
+            for (int i = 0; i < values.length; i++) {
+                Row row = sheet.createRow(i * 2);
+                for (int j = 0; j < values[i].length; j++) {
+                    row.createCell(j).setCellValue(values[i][j]);
+                }
+            }
+            sheet.createRow(values.length * 2).createCell(0).setCellValue(1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            book.write(out);
+            page = ReportPageReader.read("report.xlsx", new ByteArrayInputStream(out.toByteArray()));
+        }
+    }
+
+    @DataProvider(name = "search")
+    Object[][] getData() {
+        return new Object[][]{
+                {"итого", 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, "C1"},
+                {"итого", 1, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, "C3"},
+                {"итого", 1, Integer.MAX_VALUE, 0, 2, "A5"},
+                {"итого", 5, 8, 0, Integer.MAX_VALUE, "C7"},
+                {"итого по", 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, "C3"},
+                {"Движение ДС", 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, "B5"},
+                {"движение денежных средств", 0, 2, 0, Integer.MAX_VALUE, null},
+                {"не найдено", 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, null}};
+    }
+
+    @Test(dataProvider = "search")
+    void testFind(String value, int startRow, int endRow, int startColumn, int endColumn, String address) {
+        CellAddress expected = ExcelTableHelper.find(page, value, startRow, endRow, startColumn, endColumn,
+                NOT_INDEXED_STRING_EQUALS);
+        assertEquals(expected, (address == null) ? ExcelTableHelper.NOT_FOUND : new CellAddress(address));
+        assertEquals(ExcelTableHelper.find(page, value, startRow, endRow, startColumn, endColumn,
+                ExcelTableHelper.CELL_STRING_EQUALS), expected);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import org.testng.annotations.Test;
+import ru.portfolio.portfolio.pojo.CashFlowType;
+import ru.portfolio.portfolio.pojo.EventCashFlow;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+public class ExcelTableTest {
+
+    @Test
+    void testAddWithKey() {
+        Instant instant = Instant.now();
+        EventCashFlow cash1 = getCash(instant, 10, "1");
+        EventCashFlow cash2 = getCash(instant.plusSeconds(1), 10, "2");
+        EventCashFlow cash3 = getCash(instant, 10, "3");
+        EventCashFlow cash4 = getCash(instant, 20, "4");
+        Map<Object, Collection<EventCashFlow>> map = new LinkedHashMap<>();
+        for (EventCashFlow cash : Arrays.asList(cash1, cash2, cash3, cash4, cash1)) {
+            ExcelTable.addWithKey(cash, map, EventCashFlow::getDuplicateKey, EventCashFlow::mergeDuplicates);
+        }
+        List<EventCashFlow> result = ExcelTable.toList(map);
+
+        assertEquals(result.size(), 3);
+        assertEquals(result.get(0), cash2);
+        assertEquals(result.get(1), cash1.toBuilder()
+                .value(BigDecimal.valueOf(40))
+                .description("1; 3; 4")
+                .build());
+        assertEquals(result.get(2), cash1);
+    }
+
+    @Test
+    void testAddWithKeyMergesOnlyEqualValues() {
+        Instant instant = Instant.now();
+        Map<Object, Collection<EventCashFlow>> map = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            ExcelTable.addWithKey(getCash(instant, 10, null), map, EventCashFlow::getDuplicateKey, EventCashFlow::mergeDuplicates);
+        }
+        List<EventCashFlow> result = ExcelTable.toList(map);
+
+        assertEquals(result.size(), 2);
+        assertEquals(result.get(0).getValue(), BigDecimal.valueOf(20));
+        assertEquals(result.get(1).getValue(), BigDecimal.valueOf(10));
+    }
+
+    private static EventCashFlow getCash(Instant instant, int value, String description) {
+        return EventCashFlow.builder()
+                .portfolio("1")
+                .timestamp(instant)
+                .eventType(CashFlowType.CASH)
+                .value(BigDecimal.valueOf(value))
+                .description(description)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.testng.Assert.*;
+
+public class ReportPageReaderTest {
+
+    @DataProvider(name = "workbook")
+    Object[][] getData() {
+        return new Object[][]{{new XSSFWorkbook(), "report.xlsx"}, {new HSSFWorkbook(), "report.xls"}};
+    }
+
+    @Test(dataProvider = "workbook")
+    void testRead(Workbook book, String fileName) throws IOException {
+        Sheet sheet = book.createSheet();
+        Row row = sheet.createRow(0);
+        row.createCell(0).setCellValue("Договор №:");
+        row.createCell(2).setCellValue(12.5);
+        row = sheet.createRow(3);
+        row.createCell(1).setCellValue(true);
+        row.createCell(2).setCellFormula("1+2");
+        row.createCell(3);
+        book.createSheet().createRow(0).createCell(0).setCellValue("second sheet");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        book.write(out);
+        book.close();
+
+        ReportPage page = ReportPageReader.read(fileName, new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(page.getLastRowNum(), 3);
+        assertNull(page.getRow(1));
+        assertNull(page.getRow(4));
+        ReportPageRow first = page.getRow(0);
+        assertEquals(first.getFirstCellNum(), 0);
+        assertEquals(first.getLastCellNum(), 3);
+        assertNull(first.getCell(1));
+        assertEquals(first.getCell(0).getStringCellValue(), "Договор №:");
+        assertEquals(first.getCell(2).getCellType(), CellType.NUMERIC);
+        assertEquals(first.getCell(2).getNumericCellValue(), 12.5);
+        assertThrows(IllegalStateException.class, () -> first.getCell(2).getStringCellValue());
+        ReportPageRow last = page.getRow(3);
+        assertEquals(last.getFirstCellNum(), 1);
+        assertTrue(last.getCell(1).getBooleanCellValue());
+        assertEquals(last.getCell(2).getCellType(), CellType.FORMULA);
+        assertEquals(last.getCell(3).getCellType(), CellType.BLANK);
+        assertEquals(last.getCell(3).getStringCellValue(), "");
+        int cells = 0;
+        for (TableCell ignored : last) cells++;
+        assertEquals(cells, 3);
+    }
+
+    @Test(dataProvider = "workbook")
+    void testReadHeader(Workbook book, String fileName) throws IOException {
+        Sheet sheet = book.createSheet();
+        for (int i = 0; i < 10; i++) {
+            sheet.createRow(i).createCell(0).setCellValue("row " + i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        book.write(out);
+        book.close();
+
+        ReportPage page = ReportPageReader.read(fileName, new ByteArrayInputStream(out.toByteArray()), 3);
+
+        assertEquals(page.getLastRowNum(), 2);
+        assertEquals(page.getRow(2).getCell(0).getStringCellValue(), "row 2");
+    }
+}
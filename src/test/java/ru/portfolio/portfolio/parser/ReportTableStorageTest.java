@@ -0,0 +1,170 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.portfolio.portfolio.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import ru.portfolio.portfolio.pojo.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+
+public class ReportTableStorageTest {
+    private JdbcTemplate jdbcTemplate;
+    private ReportTableStorage storage;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeMethod
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";mode=mysql;DB_CLOSE_DELAY=-1");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        storage = new ReportTableStorage(jdbcTemplate, new ObjectMapper(), event -> {});
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void testRepeatedStore() {
+        for (int i = 0; i < 2; i++) {
+            store();
+        }
+        assertEquals(count("portfolio"), 1);
+        assertEquals(count("security"), 2);
+        assertEquals(count("transaction"), 1);
+        assertEquals(count("transaction_cash_flow"), 2);
+        assertEquals(count("event_cash_flow"), 1);
+        assertEquals(count("security_event_cash_flow"), 1);
+        assertEquals(jdbcTemplate.queryForObject("SELECT `name` FROM `security` WHERE `isin` = 'isin1'", String.class),
+                "name1");
+    }
+
+    @Test
+    void testStoredRowsCounting() {
+        ReportImportFile file = new ReportImportFile("report.xlsx", null, null);
+        storage.setImportFile(file);
+        try {
+            store();
+        } finally {
+            storage.removeImportFile();
+        }
+        assertEquals(file.getRowsStored(), 8);
+        assertEquals(file.getDuplicatesSkipped(), 1);
+        assertEquals(file.getRowsFailed(), 0);
+    }
+
+    @Test
+    void testDuplicatesSkippedBeforeInsert() {
+        store();
+        ReportImportFile file = new ReportImportFile("report.xlsx", null, null);
+        storage.setImportFile(file);
+        try {
+            store();
+        } finally {
+            storage.removeImportFile();
+        }
+        assertEquals(file.getRowsStored(), 0);
+        assertEquals(file.getDuplicatesSkipped(), 9);
+    }
+
+    @Test
+    void testFailedRowSkippedInTransaction() {
+        Instant timestamp = Instant.parse("2020-01-01T10:00:00Z");
+        ReportImportFile file = new ReportImportFile("report.xlsx", null, null);
+        storage.setImportFile(file);
+        try {
+            transactionTemplate.execute(status -> {
+                storage.addPortfolio(Portfolio.builder().id("1").build());
+                storage.addSecurityIsins(Collections.singletonList("isin1"));
+                storage.addTransactions(Arrays.asList(
+                        Transaction.builder().id(1L).portfolio("1").isin("isin1").timestamp(timestamp).count(10)
+                                .build(),
+                        Transaction.builder().id(2L).portfolio("1").isin("unknown").timestamp(timestamp).count(10)
+                                .build(), // security foreign key violation
+                        Transaction.builder().id(3L).portfolio("1").isin("isin1").timestamp(timestamp).count(-10)
+                                .build()));
+                return null;
+            });
+        } finally {
+            storage.removeImportFile();
+        }
+        assertEquals(count("transaction"), 2);
+        assertEquals(file.getRowsStored(), 4);
+        assertEquals(file.getDuplicatesSkipped(), 0);
+        assertEquals(file.getRowsFailed(), 1);
+    }
+
+    @Test
+    void testPropertiesWithoutTimestampDeduplicated() {
+        storage.addPortfolio(Portfolio.builder().id("1").build());
+        PortfolioProperty property = PortfolioProperty.builder()
+                .portfolio("1").property(PortfolioPropertyType.TOTAL_ASSETS).value("100")
+                .build();
+        ReportImportFile file = new ReportImportFile("report.xlsx", null, null);
+        storage.setImportFile(file);
+        try {
+            storage.addPortfolioProperties(Arrays.asList(property, property));
+        } finally {
+            storage.removeImportFile();
+        }
+        assertEquals(count("portfolio_property"), 1);
+        assertEquals(file.getDuplicatesSkipped(), 1);
+    }
+
+    private void store() {
+        Instant timestamp = Instant.parse("2020-01-01T10:00:00Z");
+        storage.addPortfolio(Portfolio.builder().id("1").build());
+        storage.addSecurities(Collections.singletonList(Security.builder().isin("isin1").name("name1").build()));
+        storage.addSecurityIsins(Arrays.asList("isin1", "isin2", "isin2"));
+        storage.addTransactions(Collections.singletonList(Transaction.builder()
+                .id(1L).portfolio("1").isin("isin1").timestamp(timestamp).count(10)
+                .build()));
+        storage.addTransactionCashFlows(Arrays.asList(
+                TransactionCashFlow.builder().transactionId(1L).portfolio("1").eventType(CashFlowType.PRICE)
+                        .value(BigDecimal.valueOf(-100)).build(),
+                TransactionCashFlow.builder().transactionId(1L).portfolio("1").eventType(CashFlowType.COMMISSION)
+                        .value(BigDecimal.valueOf(-1)).build()));
+        storage.addEventCashFlows(Collections.singletonList(EventCashFlow.builder()
+                .portfolio("1").timestamp(timestamp).eventType(CashFlowType.CASH).value(BigDecimal.valueOf(1000))
+                .build()));
+        storage.addSecurityEventCashFlows(Collections.singletonList(SecurityEventCashFlow.builder()
+                .portfolio("1").timestamp(timestamp).isin("isin2").count(10).eventType(CashFlowType.COUPON)
+                .value(BigDecimal.valueOf(15))
+                .build()));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM `" + table + "`", Integer.class);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import ru.portfolio.portfolio.cache.CacheFactory;
+import ru.portfolio.portfolio.entity.PortfolioPropertyEntity;
+import ru.portfolio.portfolio.pojo.PortfolioPropertyType;
+import ru.portfolio.portfolio.repository.PortfolioPropertyRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+public class ForeignExchangeRateServiceTest {
+    private static final ZoneId zoneId = ZoneId.of("Europe/Moscow");
+    private PortfolioPropertyRepository repository;
+    private ForeignExchangeRateService service;
+
+    @BeforeMethod
+    void setUp() {
+        repository = mock(PortfolioPropertyRepository.class);
+        when(repository.findByPropertyOrderByTimestampAsc(anyString())).thenReturn(Collections.emptyList());
+        when(repository.findByPropertyOrderByTimestampAsc(PortfolioPropertyType.USDRUB_EXCHANGE_RATE.name()))
+                .thenReturn(Arrays.asList(
+                        getRate("2020-01-10", 9, "61"),
+                        getRate("2020-01-10", 18, "62"),
+                        getRate("2020-01-15", 9, "65")));
+        service = new ForeignExchangeRateService(repository, new CacheFactory(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testNearestPriorRate() {
+        assertEquals(getUsdRate("2020-01-10"), BigDecimal.valueOf(62.0));
+        assertEquals(getUsdRate("2020-01-14"), BigDecimal.valueOf(62.0));
+        assertEquals(getUsdRate("2020-01-15"), BigDecimal.valueOf(65.0));
+        assertEquals(getUsdRate("2020-02-01"), BigDecimal.valueOf(65.0));
+        assertEquals(getUsdRate("2020-01-01"), BigDecimal.valueOf(62.0)); // first known rate
+        assertEquals(service.getExchangeRateToRub("USD"), BigDecimal.valueOf(65.0));
+        verify(repository, times(1)).findByPropertyOrderByTimestampAsc(anyString());
+    }
+
+    @Test
+    void testRequesterTimezone() {
+        ZoneId honolulu = ZoneId.of("Pacific/Honolulu");
+        // 2020-01-15 09:00 in Moscow is 2020-01-14 20:00 in Honolulu
+        assertEquals(service.getExchangeRateToRub("USD", Instant.parse("2020-01-15T08:00:00Z"), honolulu),
+                BigDecimal.valueOf(65.0));
+        assertEquals(service.getExchangeRateToRub("USD", Instant.parse("2020-01-14T08:00:00Z"), zoneId),
+                BigDecimal.valueOf(62.0));
+    }
+
+    @Test
+    void testInvalidate() {
+        service.getExchangeRateToRub("USD");
+        service.invalidate(Collections.singleton(PortfolioPropertyType.USDRUB_EXCHANGE_RATE));
+        service.getExchangeRateToRub("USD");
+        verify(repository, times(2)).findByPropertyOrderByTimestampAsc(anyString());
+    }
+
+    private BigDecimal getUsdRate(String date) {
+        return service.getExchangeRateToRub("USD", LocalDate.parse(date).atTime(12, 0).atZone(zoneId).toInstant(), zoneId);
+    }
+
+    private static PortfolioPropertyEntity getRate(String date, int hour, String value) {
+        PortfolioPropertyEntity entity = new PortfolioPropertyEntity();
+        entity.setProperty(PortfolioPropertyType.USDRUB_EXCHANGE_RATE.name());
+        entity.setTimestamp(LocalDate.parse(date).atTime(hour, 0).atZone(zoneId).toInstant());
+        entity.setValue(value);
+        return entity;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.testng.Assert.assertEquals;
+import static ru.portfolio.portfolio.view.TransactionFixtures.getTransactions;
+
+public class PositionTimelineTest {
+
+    @Test
+    void testGetPositionsOpenedAt() {
+        Positions positions = new Positions(getTransactions(10, 5, -3, -8, 4, -10, 6, 2, -1), new LinkedList<>());
+        PositionTimeline timeline = positions.getTimeline();
+        for (int second = 0; second <= 11; second++) {
+            Instant instant = Instant.ofEpochSecond(second).plusNanos(1);
+            List<Position> expected = new ArrayList<>();
+            positions.getClosedPositions().stream().filter(p -> p.wasOpenedAtTheInstant(instant)).forEach(expected::add);
+            positions.getOpenedPositions().stream().filter(p -> p.wasOpenedAtTheInstant(instant)).forEach(expected::add);
+            assertEquals(new ArrayList<>(timeline.getPositionsOpenedAt(instant)), expected);
+        }
+    }
+
+    @Test
+    void testGetLastInstantBefore() {
+        Positions positions = new Positions(getTransactions(10, -10, 10, -5), new LinkedList<>());
+        PositionTimeline timeline = positions.getTimeline();
+        assertEquals(timeline.getLastInstantBefore(Instant.ofEpochSecond(4), 10), Optional.of(Instant.ofEpochSecond(3)));
+        assertEquals(timeline.getLastInstantBefore(Instant.ofEpochSecond(3), 10), Optional.of(Instant.ofEpochSecond(1)));
+        assertEquals(timeline.getLastInstantBefore(Instant.ofEpochSecond(1), 10), Optional.empty());
+        assertEquals(timeline.getLastInstantBefore(Instant.ofEpochSecond(5), 3), Optional.empty());
+    }
+}
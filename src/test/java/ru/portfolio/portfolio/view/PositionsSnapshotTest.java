@@ -0,0 +1,81 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+import ru.portfolio.portfolio.pojo.CashFlowType;
+import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
+import ru.portfolio.portfolio.pojo.Transaction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static ru.portfolio.portfolio.view.TransactionFixtures.getTransactions;
+
+public class PositionsSnapshotTest {
+    private static final String PORTFOLIO = "portfolio";
+    private static final String ISIN = "isin";
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testRestoredPositions() throws Exception {
+        List<Transaction> transactions = getTransactions(10, -4, 5, -13, 8);
+        List<SecurityEventCashFlow> redemptions = getRedemptions();
+        Positions positions = new Positions(new LinkedList<>(transactions), new LinkedList<>(redemptions));
+
+        Positions restored = restore(positions);
+
+        assertEquals(PositionsSnapshot.of(restored), PositionsSnapshot.of(positions));
+        assertEquals(restored.getClosedPositions().getLast().getCloseTransaction().getId(), null);
+    }
+
+    @Test
+    void testIncrementalUpdate() throws Exception {
+        List<Transaction> transactions = getTransactions(10, -4, 5, -13, 8);
+        List<SecurityEventCashFlow> redemptions = getRedemptions();
+        Positions positions = new Positions(new LinkedList<>(transactions), new LinkedList<>(redemptions));
+
+        Positions updated = restore(new Positions(new LinkedList<>(transactions.subList(0, 2)), new LinkedList<>()));
+        updated.addTransactions(new LinkedList<>(transactions.subList(2, transactions.size())));
+        updated.addRedemptions(new LinkedList<>(redemptions));
+
+        assertEquals(PositionsSnapshot.of(updated), PositionsSnapshot.of(positions));
+    }
+
+    private Positions restore(Positions positions) throws Exception {
+        String json = objectMapper.writeValueAsString(PositionsSnapshot.of(positions));
+        return objectMapper.readValue(json, PositionsSnapshot.class).toPositions(PORTFOLIO, ISIN);
+    }
+
+    private static List<SecurityEventCashFlow> getRedemptions() {
+        return Collections.singletonList(SecurityEventCashFlow.builder()
+                .portfolio(PORTFOLIO)
+                .isin(ISIN)
+                .timestamp(Instant.ofEpochSecond(10 * 86400))
+                .count(6)
+                .eventType(CashFlowType.REDEMPTION)
+                .value(BigDecimal.valueOf(6000))
+                .build());
+    }
+}
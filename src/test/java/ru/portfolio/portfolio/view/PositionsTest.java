@@ -0,0 +1,74 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import org.testng.annotations.Test;
+import ru.portfolio.portfolio.pojo.CashFlowType;
+import ru.portfolio.portfolio.pojo.SecurityEventCashFlow;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static ru.portfolio.portfolio.view.TransactionFixtures.getTransactions;
+
+public class PositionsTest {
+
+    @Test
+    void testFifoClosing() {
+        // sell of 16 closes 2 long positions and opens short one, buy of 6 closes short and opens long position
+        Positions positions = new Positions(getTransactions(10, 5, -16, 6), Collections.emptyList());
+
+        assertEquals(toString(positions.getClosedPositions()), Arrays.asList(
+                "1->3:10:PRICE", "2->3:5:PRICE", "3->4:1:PRICE"));
+        assertEquals(positions.getOpenedPositions().size(), 1);
+        assertEquals(positions.getOpenedPositions().getFirst().getOpenTransaction().getId(), Long.valueOf(4));
+        assertEquals(positions.getOpenedPositions().getFirst().getUnclosedPositions(), 5);
+        assertEquals(positions.getPositionHistories().getLast().getOpenedPositions(), 5);
+    }
+
+    @Test
+    void testRedemption() {
+        Positions positions = new Positions(getTransactions(10, -4, 3), Collections.singletonList(
+                SecurityEventCashFlow.builder()
+                        .portfolio("portfolio")
+                        .isin("isin")
+                        .timestamp(Instant.ofEpochSecond(10))
+                        .count(9)
+                        .eventType(CashFlowType.REDEMPTION)
+                        .value(BigDecimal.valueOf(9000))
+                        .build()));
+
+        assertEquals(toString(positions.getClosedPositions()), Arrays.asList(
+                "1->2:4:PRICE", "1->null:6:REDEMPTION", "3->null:3:REDEMPTION"));
+        assertEquals(positions.getOpenedPositions().size(), 0);
+        assertEquals(positions.getPositionHistories().getLast().getOpenedPositions(), 0);
+    }
+
+    private static List<String> toString(Iterable<ClosedPosition> positions) {
+        List<String> result = new ArrayList<>();
+        positions.forEach(p -> result.add(p.getOpenTransaction().getId() + "->" + p.getCloseTransaction().getId() +
+                ":" + p.getCount() + ":" + p.getClosingEvent()));
+        return result;
+    }
+}
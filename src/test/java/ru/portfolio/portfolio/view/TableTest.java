@@ -0,0 +1,71 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import org.testng.annotations.Test;
+import ru.portfolio.portfolio.view.excel.CashFlowExcelTableHeader;
+import ru.portfolio.portfolio.view.excel.TaxExcelTableHeader;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+import static ru.portfolio.portfolio.view.excel.CashFlowExcelTableHeader.*;
+
+public class TableTest {
+
+    @Test
+    void testRecord() {
+        Table.Record record = new Table.Record();
+        assertTrue(record.isEmpty());
+        assertNull(record.get(CASH));
+
+        record.put(EXCHANGE_RATE, 75);
+        record.put(CASH, 10);
+        record.put(CASH, 20);
+        assertEquals(record.size(), 2);
+        assertEquals(record.get(CASH), 20);
+        assertEquals(record.getHeaderType(), CashFlowExcelTableHeader.class);
+        assertEquals(record.keySet().toArray(), new Object[]{CASH, EXCHANGE_RATE}); // ordinal order
+        assertEquals(record, Map.of(CASH, 20, EXCHANGE_RATE, 75));
+
+        Table.Record copy = new Table.Record(record);
+        record.remove(CASH);
+        record.put(EXCHANGE_RATE, null);
+        assertTrue(record.isEmpty());
+        assertEquals(copy.size(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    void testRecordOfDifferentHeaders() {
+        Table.Record record = new Table.Record();
+        record.put(CASH, 10);
+        record.put(TaxExcelTableHeader.values()[0], 10);
+    }
+
+    @Test
+    void testEmptyRecordsAreNotShared() {
+        Table table = new Table();
+        table.addEmptyRecord();
+        table.addEmptyRecord();
+        table.get(0).put(CASH, 10);
+        assertEquals(table.get(1).size(), 0);
+        assertEquals(table, Arrays.asList(Map.of(CASH, 10), Map.of()));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Portfolio
+ * Copyright (C) 2020  Vitalii Ananev <an-vitek@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.portfolio.portfolio.view;
+
+import ru.portfolio.portfolio.pojo.Transaction;
+
+import java.time.Instant;
+import java.util.LinkedList;
+
+class TransactionFixtures {
+
+    /**
+     * @return transactions of "isin" with ids and epoch seconds 1, 2, 3... and given counts
+     */
+    static LinkedList<Transaction> getTransactions(int... counts) {
+        LinkedList<Transaction> transactions = new LinkedList<>();
+        for (int i = 0; i < counts.length; i++) {
+            transactions.add(Transaction.builder()
+                    .id((long) i + 1)
+                    .portfolio("portfolio")
+                    .isin("isin")
+                    .timestamp(Instant.ofEpochSecond(i + 1))
+                    .count(counts[i])
+                    .build());
+        }
+        return transactions;
+    }
+}